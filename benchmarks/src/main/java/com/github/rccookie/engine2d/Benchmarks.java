@@ -0,0 +1,69 @@
+package com.github.rccookie.engine2d;
+
+import java.util.Random;
+
+import com.github.rccookie.engine2d.image.Color;
+import com.github.rccookie.engine2d.image.Image;
+import com.github.rccookie.engine2d.impl.headless.HeadlessImplementation;
+import com.github.rccookie.engine2d.impl.headless.HeadlessLoopExecutor;
+import com.github.rccookie.geometry.performance.float2;
+
+/**
+ * Shared setup for the engine benchmarks. All benchmarks run against the
+ * headless implementation so that they can be executed on build servers
+ * without a display.
+ */
+public enum Benchmarks {
+
+    ; // No instance
+
+    /**
+     * Seed used for all randomly placed objects, so that runs are comparable.
+     */
+    public static final long SEED = 0x2D2D2DL;
+
+    /**
+     * Sets up the application with the headless implementation, if not
+     * already done.
+     */
+    public static synchronized void setup() {
+        if(!Application.isSetup())
+            Application.setup(new HeadlessImplementation(), HeadlessLoopExecutor::new);
+    }
+
+    /**
+     * Creates a new map with a camera of the given resolution attached to
+     * it, and the given number of gameobjects with small images spread out
+     * over an area of the given size around the origin.
+     *
+     * @param objectCount The number of gameobjects to add
+     * @param areaSize The width and height of the area to place the objects
+     *                 in, in pixels
+     * @param physics Whether the gameobjects should use physics
+     * @return The camera, attached to the map
+     */
+    public static Camera createScene(int objectCount, float areaSize, boolean physics) {
+        setup();
+
+        Map map = new Map();
+        Camera camera = new Camera(1280, 720);
+        GameObject cameraObject = new GameObject();
+        cameraObject.setMap(map);
+        camera.setGameObject(cameraObject);
+        Camera.setActive(camera);
+
+        Image image = new Image(8, 8, Color.GRAY);
+        Random random = new Random(SEED);
+        for(int i=0; i<objectCount; i++) {
+            GameObject object = new GameObject();
+            object.setImage(image);
+            object.location.set(new float2(
+                    (random.nextFloat() - 0.5f) * areaSize,
+                    (random.nextFloat() - 0.5f) * areaSize
+            ));
+            object.usePhysics(physics);
+            object.setMap(map);
+        }
+        return camera;
+    }
+}
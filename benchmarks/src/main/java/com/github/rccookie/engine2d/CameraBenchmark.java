@@ -0,0 +1,44 @@
+package com.github.rccookie.engine2d;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of collecting and sorting the draw objects for a frame.
+ * The objects are spread over an area nine times the size of the screen,
+ * so roughly a ninth of them are visible.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CameraBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int objectCount;
+
+    private Camera camera;
+
+    @Setup
+    public void setup() {
+        camera = Benchmarks.createScene(objectCount, 3 * 1280, false);
+    }
+
+    @Benchmark
+    public long prepareRender() {
+        return camera.prepareRender();
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.rccookie.engine2d;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a single map update, including the physics step. Without
+ * physics all gameobjects are kinematic, so the step only has to sync
+ * the transforms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int objectCount;
+
+    @Param({ "false", "true" })
+    public boolean physics;
+
+    private Map map;
+
+    @Setup
+    public void setup() {
+        Benchmarks.setup();
+        // Deterministic delta time independent of the benchmark's frame rate
+        Time.setTickRate(60);
+        map = Benchmarks.createScene(objectCount, 3 * 1280, physics).getMap();
+    }
+
+    @Benchmark
+    public Map update() {
+        map.update();
+        return map;
+    }
+}
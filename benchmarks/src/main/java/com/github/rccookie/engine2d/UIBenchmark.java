@@ -0,0 +1,62 @@
+package com.github.rccookie.engine2d;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.engine2d.ui.ColorPanel;
+import com.github.rccookie.engine2d.ui.Structure;
+import com.github.rccookie.geometry.performance.int2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures iterating a ui tree in paint order. The tree consists of
+ * {@code width} structures, each holding {@code width} color panels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UIBenchmark {
+
+    @Param({ "10", "30", "100" })
+    public int width;
+
+    private UI ui;
+
+    @Setup
+    public void setup() {
+        Benchmarks.setup();
+        ui = new UI(new Camera(1280, 720));
+        int2 size = new int2(4, 4);
+        for(int i=0; i<width; i++) {
+            Structure structure = new Structure(ui);
+            for(int j=0; j<width; j++)
+                new ColorPanel(structure, size);
+        }
+    }
+
+    @Benchmark
+    public void paintOrder(Blackhole blackhole) {
+        for(UIObject object : ui.paintOrderIterator(false))
+            blackhole.consume(object);
+    }
+
+    @Benchmark
+    public void paintOrderExcludeBlank(Blackhole blackhole) {
+        for(UIObject object : ui.paintOrderIterator(true))
+            blackhole.consume(object);
+    }
+}
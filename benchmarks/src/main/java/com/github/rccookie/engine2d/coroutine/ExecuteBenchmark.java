@@ -0,0 +1,71 @@
+package com.github.rccookie.engine2d.coroutine;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.engine2d.Application;
+import com.github.rccookie.engine2d.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures scheduling coroutines through {@link Execute} and running the
+ * pending coroutines once per update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecuteBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int pending;
+
+    private final Coroutine<?>[] running = new Coroutine<?>[1000];
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        Benchmarks.setup();
+        for(int i=0; i<pending; i++)
+            running[i] = Execute.repeating((LoopTask) () -> { }, 0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        for(int i=0; i<pending; i++)
+            running[i].stop();
+        Application.earlyUpdate.invoke();
+    }
+
+    /**
+     * Schedules a task for the next update and runs the update.
+     */
+    @Benchmark
+    public Coroutine<Void> scheduleAndRun() {
+        Coroutine<Void> coroutine = Execute.nextFrame(() -> { });
+        Application.earlyUpdate.invoke();
+        Application.earlyUpdate.invoke();
+        return coroutine;
+    }
+
+    /**
+     * Runs a single update with the pending repeating coroutines.
+     */
+    @Benchmark
+    public void run() {
+        Application.earlyUpdate.invoke();
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.rccookie.engine2d.image;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.engine2d.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures text rendering and the glyph cache lookup it is based on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FontBenchmark {
+
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog 0123456789";
+
+    private FontData data;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        Benchmarks.setup();
+        data = FontData.getInstance(Font.DEFAULT);
+        // Fill the glyph cache so that the lookups measure cache hits only
+        Font.DEFAULT.render(TEXT, Color.BLACK);
+    }
+
+    @Benchmark
+    public Image render() {
+        return Font.DEFAULT.render(TEXT, Color.BLACK);
+    }
+
+    @Benchmark
+    public Image renderChar() {
+        return Font.DEFAULT.renderChar(nextChar(), Color.BLACK);
+    }
+
+    @Benchmark
+    public Image glyphLookup() {
+        return data.getChar(nextChar(), Color.BLACK);
+    }
+
+    private char nextChar() {
+        if(++index == TEXT.length()) index = 0;
+        return TEXT.charAt(index);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.rccookie.engine2d.online;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.engine2d.online.server.Message;
+import com.github.rccookie.geometry.performance.float2;
+import com.github.rccookie.json.Json;
+import com.github.rccookie.json.JsonElement;
+import com.github.rccookie.json.JsonObject;
+import com.github.rccookie.json.JsonParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures encoding and decoding messages the way {@link ClientConnection}
+ * does, using the payload of location syncs for
+ * {@value #OBJECT_COUNT} gameobjects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageJsonBenchmark {
+
+    private static final int OBJECT_COUNT = 32;
+
+    private final JsonObject data = new JsonObject();
+    private Message message;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        for(int i=0; i<OBJECT_COUNT; i++)
+            data.put("locationSync" + i, new JsonObject(
+                    "loc", new float2(i * 1.5f, i * -2.25f),
+                    "vel", new float2(0.5f, 0),
+                    "angle", i * 3.5f,
+                    "rot", 0f
+            ));
+        message = new Message(JsonElement.wrap(data), MessageType.CLIENT_TO_SERVER);
+        encoded = encode().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Json.toString(message, false);
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        try(JsonParser parser = Json.getParser(new ByteArrayInputStream(encoded))) {
+            for(JsonElement message : parser) {
+                blackhole.consume(message.get("time").asLong());
+                blackhole.consume(MessageType.values()[message.get("type").asInt()]);
+                blackhole.consume(message.get("content"));
+            }
+        }
+    }
+}
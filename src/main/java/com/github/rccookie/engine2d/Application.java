@@ -3,11 +3,14 @@ package com.github.rccookie.engine2d;
 import java.awt.DisplayMode;
 import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
+import java.util.function.Supplier;
 
 import com.github.rccookie.engine2d.core.DrawObject;
 import com.github.rccookie.engine2d.core.LoopExecutor;
 import com.github.rccookie.engine2d.core.ParallelLoopExecutor;
 import com.github.rccookie.engine2d.core.SequentialLoopExecutor;
+import com.github.rccookie.engine2d.core.WaitPolicy;
+import com.github.rccookie.engine2d.core.stats.FrameTimeRecorder;
 import com.github.rccookie.engine2d.core.stats.PerformanceStats;
 import com.github.rccookie.engine2d.coroutine.Execute;
 import com.github.rccookie.engine2d.impl.DisplayController;
@@ -66,6 +69,11 @@ public enum Application {
      */
     private static LoopExecutor executor = null;
 
+    /**
+     * Records the durations of the frame phases for percentile stats.
+     */
+    static final FrameTimeRecorder frameTimes = new FrameTimeRecorder();
+
     /**
      * The "native" implementation of this application.
      */
@@ -127,6 +135,24 @@ public enum Application {
      *                 ignored
      */
     public static void setup(Implementation implementation, boolean parallel) {
+        setup(implementation, (parallel && implementation.supportsMultithreading()) ?
+                ParallelLoopExecutor::new : SequentialLoopExecutor::new);
+    }
+
+    /**
+     * Set up the application to use the specified "native" implementation and
+     * the loop executor created by the given factory, for example a
+     * {@link com.github.rccookie.engine2d.core.PipelinedLoopExecutor}. The executor
+     * gets created after the implementation has been set.
+     * This method must be called before any of the classes can be used,
+     * and can only be used once. Otherwise, an {@link IllegalStateException}
+     * will be thrown.
+     *
+     * @param implementation The implementation to use
+     * @param executorFactory Factory for the loop executor to run the update
+     *                        loop with
+     */
+    public static void setup(Implementation implementation, Supplier<? extends LoopExecutor> executorFactory) {
         if(Application.implementation != null)
             throw new IllegalStateException();
 
@@ -135,10 +161,12 @@ public enum Application {
         implementation.initProperties(properties);
 
         implementation.setDisplayController(displayController);
-        executor = (parallel && implementation.supportsMultithreading()) ?
-                new ParallelLoopExecutor() : new SequentialLoopExecutor();
+        executor = executorFactory.get();
 
-        if(implementation.supportsAWT()) {
+        Float defaultFps = executor.getDefaultFps();
+        if(defaultFps != null)
+            executor.setFps(defaultFps);
+        else if(implementation.supportsAWT() && !GraphicsEnvironment.isHeadless()) {
             GraphicsDevice[] monitors = GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices();
             int max = DisplayMode.REFRESH_RATE_UNKNOWN;
             for(GraphicsDevice monitor : monitors)
@@ -252,6 +280,31 @@ public enum Application {
         executor.setFps(fps);
     }
 
+    /**
+     * Returns the policy used by the update and render thread to wait for each other.
+     *
+     * @return The current wait policy
+     */
+    public static WaitPolicy getThreadWaitPolicy() {
+        checkSetup();
+        return executor.getWaitPolicy();
+    }
+
+    /**
+     * Sets the policy used by the update and render thread to wait for each other.
+     * Spinning reduces the handoff latency between the threads, parking does not use
+     * any cpu time while waiting. Has no effect if the application does not run in
+     * parallel.
+     * <p>Defaults to {@link WaitPolicy#DEFAULT}, which spins for a very short time
+     * and then parks.</p>
+     *
+     * @param policy The wait policy to use
+     */
+    public static void setThreadWaitPolicy(WaitPolicy policy) {
+        checkSetup();
+        executor.setWaitPolicy(policy);
+    }
+
     /**
      * Collects current performance stats.
      *
@@ -268,11 +321,26 @@ public enum Application {
                 camera.updateDuration / 1000000000f,
                 camera.physicsDuration / 1000000000f,
                 camera.uiUpdateDuration / 1000000000f,
+                executor.getIdleDuration() / 1000000000f,
+                executor.getUpdateWaitDuration() / 1000000000f,
+                executor.getRenderWaitDuration() / 1000000000f,
+                executor.getPacingError() / 1000000000f,
+                frameTimes,
                 executor.getBottleneck(),
                 executor.isParallel()
         );
     }
 
+    /**
+     * Returns the recorder of the frame phase durations over the most recent frames,
+     * which is used for the percentiles in the {@link #getPerformanceStats() performance stats}.
+     *
+     * @return The frame time recorder
+     */
+    public static FrameTimeRecorder getFrameTimeRecorder() {
+        return frameTimes;
+    }
+
     /**
      * Returns the application-wide properties.
      *
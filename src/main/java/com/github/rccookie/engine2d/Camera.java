@@ -5,6 +5,8 @@ import java.util.List;
 import java.util.Objects;
 
 import com.github.rccookie.engine2d.core.DrawObject;
+import com.github.rccookie.engine2d.core.FrameSnapshot;
+import com.github.rccookie.engine2d.core.stats.FramePhase;
 import com.github.rccookie.engine2d.coroutine.LocalExecutionManager;
 import com.github.rccookie.engine2d.core.LocalInputManager;
 import com.github.rccookie.engine2d.coroutine.Execute;
@@ -106,6 +108,55 @@ public class Camera {
      */
     final List<DrawObject> drawObjects = new ArrayList<>();
 
+    /**
+     * Gameobjects visible in the frame currently being prepared. Reused between frames.
+     */
+    private final List<GameObject> visibleObjects = new ArrayList<>();
+
+    /**
+     * The visible gameobjects of the last frame in paint order. Gameobjects that stay
+     * visible keep their order, so only newly visible ones have to be sorted.
+     */
+    private final List<GameObject> paintOrdered = new ArrayList<>();
+
+    /**
+     * Reused list for the gameobjects that were not visible in the last frame.
+     */
+    private final List<GameObject> newlyVisible = new ArrayList<>();
+
+    /**
+     * The {@link GameObject#paintKeyVersion()} when {@link #paintOrdered} was created.
+     */
+    private long paintOrderedVersion = 0;
+
+    /**
+     * Counter for culling passes, used to mark the gameobjects found visible. Only
+     * used on the update thread.
+     */
+    private static long cullStamp = 0;
+
+    /**
+     * Dense entity stores with visible entities in the frame currently being prepared,
+     * in paint order. Reused between frames.
+     */
+    private final List<DenseEntities> visibleStores = new ArrayList<>();
+
+    /**
+     * UI objects visible in the frame currently being prepared. Reused between frames.
+     */
+    private final List<UIObject> visibleUIObjects = new ArrayList<>();
+
+    /**
+     * Temporary vectors used while preparing draw objects.
+     */
+    private final float2 viewLocation = new float2(), screenLocation = new float2();
+
+    /**
+     * Rotation matrix from world space into screen space and the (interpolated) camera
+     * location of the frame currently being prepared, used for dense entities.
+     */
+    private float m00, m01, m10, m11, viewX, viewY;
+
     private int renderHash = -1;
     private int lastRenderHash = -1;
     private float lastRenderTime = -10;
@@ -353,6 +404,8 @@ public class Camera {
             gameObject.map.update();
             updateDuration = gameObject.map.updateDuration;
             physicsDuration = gameObject.map.physicsDuration;
+            Application.frameTimes.record(FramePhase.UPDATE, updateDuration);
+            Application.frameTimes.record(FramePhase.PHYSICS, physicsDuration);
         }
         if(ui != null) {
             long start = System.nanoTime();
@@ -360,6 +413,7 @@ public class Camera {
             uiUpdateDuration = System.nanoTime() - start;
         }
         else uiUpdateDuration = 0;
+        Application.frameTimes.record(FramePhase.UI_UPDATE, uiUpdateDuration);
     }
 
     /**
@@ -373,33 +427,73 @@ public class Camera {
 
         long start = System.nanoTime();
 
-        GameObject[] gameObjects = new GameObject[0];
+        renderHash = prepareDrawObjects(drawObjects);
+
+        renderPrepDuration = System.nanoTime() - start;
+        Application.frameTimes.record(FramePhase.RENDER_PREP, renderPrepDuration);
+        return renderPrepDuration;
+    }
+
+    /**
+     * Prepares rendering the current state of map and ui by saving its current state
+     * into the given snapshot. The snapshot is owned by the calling thread, so unlike
+     * {@link #prepareRender()} this does not take any lock that the rendering may
+     * hold.
+     *
+     * <p>This is an internal method. It should be called from the update thread only.</p>
+     *
+     * @param snapshot The snapshot to write into
+     * @return The time the preparation took, in milliseconds
+     */
+    public long prepareRender(FrameSnapshot snapshot) {
+
+        long start = System.nanoTime();
+
+        snapshot.camera = this;
+        snapshot.background = backgroundColor;
+        snapshot.hash = prepareDrawObjects(snapshot.drawObjects);
+
+        renderPrepDuration = System.nanoTime() - start;
+        Application.frameTimes.record(FramePhase.RENDER_PREP, renderPrepDuration);
+        return renderPrepDuration;
+    }
+
+    /**
+     * Writes draw objects for the current state of map and ui into the given list.
+     * While writing, the list is locked.
+     *
+     * @param drawObjects The list to write the draw objects into
+     * @return The hash over the rendering state
+     */
+    private int prepareDrawObjects(List<DrawObject> drawObjects) {
+
+        int renderHash;
+
+        List<GameObject> gameObjects = visibleObjects;
+        gameObjects.clear();
+        visibleStores.clear();
+        int entityCount = 0;
+
+        // Interpolate between the last two ticks when running with a fixed timestep
+        float alpha = Time.isFixedTimestep() ? Time.interpolation() : 1;
+        boolean interpolate = alpha != 1;
 
         if(gameObject != null && gameObject.map != null) {
-            // Filter out objects with images that may be on the screen
-            float2 loc = gameObject.location;
-            gameObjects = gameObject.map.paintOrderObjects.stream()
-                    .filter(o -> {
-                        Image image = o.getImage();
-                        if(image == null || Image.definitelyBlank(image)) return false;
-                        if(o == gameObject) return true;
-
-                        // Simple circle collision detection
-                        float w = image.size.x / 2f + halfResolution.x, h = image.size.y / 2f + halfResolution.y;
-                        float maxSqrDistance = w * w + h * h;
-                        float sqrDistance = float2.sqrDist(loc, o.location);
-
-                        return sqrDistance < maxSqrDistance;
-                    }).toArray(GameObject[]::new);
+            float2 loc = interpolate ? gameObject.interpolatedLocation(alpha, viewLocation) : viewLocation.set(gameObject.location);
+            float cameraAngle = interpolate ? gameObject.interpolatedAngle(alpha) : gameObject.angle;
+            findVisibleObjects(gameObject.map, loc, cameraAngle, alpha, gameObjects);
+            entityCount = findVisibleEntities(gameObject.map, loc, cameraAngle, alpha);
         }
+        else paintOrdered.clear();
 
-        List<UIObject> uiObjects = new ArrayList<>();
+        List<UIObject> uiObjects = visibleUIObjects;
+        uiObjects.clear();
         if(ui != null)
             for(UIObject o : ((UIObject)ui).paintOrderIterator(true))
                 uiObjects.add(o);
 
         int errorMessage = gameObject != null && gameObject.map == null ? 1 : 0;
-        drawCount = gameObjects.length + uiObjects.size() + errorMessage;
+        drawCount = gameObjects.size() + entityCount + uiObjects.size() + errorMessage;
 
 //        Console.mapDebug("Objects to draw", drawCount);
 
@@ -416,17 +510,32 @@ public class Camera {
                     drawObjects.add(DrawObject.get());
 
             if(gameObject != null && gameObject.map != null) {
-                float2 screenOffset = halfResolution.subed(gameObject.location);
+                float2 location = screenLocation;
+                float cameraAngle = interpolate ? gameObject.interpolatedAngle(alpha) : gameObject.angle;
+                float2 screenOffset = halfResolution.subed(interpolate ? gameObject.interpolatedLocation(alpha, location) : gameObject.location);
+
+                // Set a draw object for each gameobject (draw first -> below UI),
+                // merged with the dense entities by paint order
+                int index = 0, store = 0;
+                for (int i = 0; i <= gameObjects.size(); i++) {
+                    GameObject g = i < gameObjects.size() ? gameObjects.get(i) : null;
+                    while(store < visibleStores.size() && (g == null || visibleStores.get(store).comparePaintOrder(g) < 0))
+                        index = prepareEntities(visibleStores.get(store++), drawObjects, index, cameraAngle, alpha);
+                    if(g == null) break;
 
-                // Set a draw object for each gameobject (draw first -> below UI)
-                for (int i = 0; i < gameObjects.length; i++) {
-                    GameObject g = gameObjects[i];
-                    DrawObject drawObject = drawObjects.get(i);
+                    DrawObject drawObject = drawObjects.get(index++);
 
                     drawObject.image = Image.getImplementation(g.getImage());
-                    drawObject.rotation = g.angle - gameObject.angle;
+                    if(interpolate) {
+                        drawObject.rotation = g.interpolatedAngle(alpha) - cameraAngle;
+                        g.interpolatedLocation(alpha, location);
+                    }
+                    else {
+                        drawObject.rotation = g.angle - cameraAngle;
+                        location.set(g.location);
+                    }
                     // Translate world position to screen position
-                    drawObject.screenLocation.set(g.location.added(screenOffset).rotateAround(halfResolution, -gameObject.angle).toI());
+                    drawObject.screenLocation.set(location.add(screenOffset).rotateAround(halfResolution, -cameraAngle).toI());
                 }
             }
             else if(gameObject != null) {
@@ -442,7 +551,7 @@ public class Camera {
 
             for(int i=0; i<uiObjects.size(); i++) {
                 UIObject u = uiObjects.get(uiObjects.size() - i - 1);
-                DrawObject drawObject = drawObjects.get(i + gameObjects.length + errorMessage);
+                DrawObject drawObject = drawObjects.get(i + gameObjects.size() + entityCount + errorMessage);
 
                 drawObject.image = Image.getImplementation(u.getImage());
                 drawObject.rotation = 0;
@@ -456,7 +565,187 @@ public class Camera {
         // having it stored unused until the next rendering
         if(ui != null) ((UIObject) ui).resetCache();
 
-        return renderPrepDuration = System.nanoTime() - start;
+        // Don't keep references to removed objects alive
+        gameObjects.clear();
+        visibleStores.clear();
+        uiObjects.clear();
+
+        return renderHash;
+    }
+
+    /**
+     * Collects the gameobjects of the given map that have an image that may be on
+     * the screen into the given list, in paint order. Only the objects within the
+     * bounding box of the rotated view rectangle are queried from the map's spatial
+     * index, and then tested against the view rectangle itself. When interpolating,
+     * the bounding box is extended by the distance objects moved this tick, as the
+     * index contains their current rather than their rendered locations.
+     *
+     * @param map The map to render
+     * @param loc The (interpolated) location of the camera
+     * @param cameraAngle The (interpolated) angle of the camera
+     * @param alpha The interpolation factor, 1 if not interpolating
+     * @param out The list to add the visible objects to
+     */
+    private void findVisibleObjects(Map map, float2 loc, float cameraAngle, float alpha, List<GameObject> out) {
+        // Bounding box of the rotated view, extended by the largest image on the map
+        float radians = cameraAngle * (float) Math.PI / 180;
+        float cos = Math.abs((float) Math.cos(radians)), sin = Math.abs((float) Math.sin(radians));
+        float margin = map.maxImageRadius + (alpha != 1 ? map.maxTickDisplacement : 0);
+        float extentX = cos * halfResolution.x + sin * halfResolution.y + margin;
+        float extentY = sin * halfResolution.x + cos * halfResolution.y + margin;
+        map.indexMovedObjects();
+        map.spatialIndex.query(loc.x - extentX, loc.y - extentY, loc.x + extentX, loc.y + extentY, out);
+
+        float offsetX = halfResolution.x - loc.x, offsetY = halfResolution.y - loc.y;
+        boolean interpolate = alpha != 1;
+
+        int size = 0;
+        for(int i=0; i<out.size(); i++) {
+            GameObject o = out.get(i);
+            Image image = o.getImage();
+            if(image == null || Image.definitelyBlank(image)) continue;
+
+            if(o != gameObject) {
+                // Transform into screen space exactly like when rendering, then test
+                // the image's bounding circle against the screen
+                float2 pos = interpolate ? o.interpolatedLocation(alpha, screenLocation) : screenLocation.set(o.location);
+                pos.x += offsetX;
+                pos.y += offsetY;
+                pos.rotateAround(halfResolution, -cameraAngle);
+                float r = o.imageRadius;
+                if(pos.x < -r || pos.y < -r || pos.x > resolution.x + r || pos.y > resolution.y + r) continue;
+            }
+            out.set(size++, o);
+        }
+        out.subList(size, out.size()).clear();
+        paintOrder(out);
+    }
+
+    /**
+     * Sorts the given visible gameobjects into paint order. Gameobjects that were
+     * already visible in the last frame and did not change their render layer, z-index
+     * or paint order keep their previous order; only the other gameobjects get sorted
+     * and are then merged in. Thus, as long as few gameobjects appear on the screen
+     * or change their layer, this takes linear time in the number of visible
+     * gameobjects.
+     *
+     * @param visible The visible gameobjects, will be sorted
+     */
+    private void paintOrder(List<GameObject> visible) {
+        long stamp = ++cullStamp;
+        long version = GameObject.paintKeyVersion();
+        for(GameObject o : visible) o.visibleStamp = stamp;
+
+        int kept = 0;
+        for(int i=0; i<paintOrdered.size(); i++) {
+            GameObject o = paintOrdered.get(i);
+            if(o.visibleStamp != stamp || o.paintKeyVersion > paintOrderedVersion) continue;
+            o.keptStamp = stamp;
+            paintOrdered.set(kept++, o);
+        }
+        paintOrdered.subList(kept, paintOrdered.size()).clear();
+
+        for(GameObject o : visible)
+            if(o.keptStamp != stamp) newlyVisible.add(o);
+        newlyVisible.sort(GameObject.PAINT_ORDER);
+
+        visible.clear();
+        int i = 0, j = 0;
+        while(i < paintOrdered.size() && j < newlyVisible.size()) {
+            if(GameObject.PAINT_ORDER.compare(newlyVisible.get(j), paintOrdered.get(i)) < 0)
+                visible.add(newlyVisible.get(j++));
+            else visible.add(paintOrdered.get(i++));
+        }
+        while(i < paintOrdered.size()) visible.add(paintOrdered.get(i++));
+        while(j < newlyVisible.size()) visible.add(newlyVisible.get(j++));
+
+        paintOrdered.clear();
+        paintOrdered.addAll(visible);
+        newlyVisible.clear();
+        paintOrderedVersion = version;
+    }
+
+    /**
+     * Finds the visible entities of all dense entity stores of the given map, and
+     * collects the stores with visible entities in paint order into {@link #visibleStores}.
+     *
+     * @param map The map to render
+     * @param loc The (interpolated) location of the camera
+     * @param cameraAngle The (interpolated) angle of the camera
+     * @param alpha The interpolation factor, 1 if not interpolating
+     * @return The total number of visible entities
+     */
+    private int findVisibleEntities(Map map, float2 loc, float cameraAngle, float alpha) {
+        if(map.denseEntities.isEmpty()) return 0;
+
+        // Rotate the base vectors exactly like gameobjects are rotated when rendering
+        float2 ex = new float2(1, 0).rotateAround(float2.zero(), -cameraAngle);
+        float2 ey = new float2(0, 1).rotateAround(float2.zero(), -cameraAngle);
+        m00 = ex.x; m10 = ex.y;
+        m01 = ey.x; m11 = ey.y;
+        viewX = loc.x;
+        viewY = loc.y;
+
+        float hx = halfResolution.x, hy = halfResolution.y, w = resolution.x, h = resolution.y;
+        boolean interpolate = alpha != 1;
+
+        int count = 0;
+        for(DenseEntities d : map.denseEntities) {
+            if(d.visible.length < d.size)
+                d.visible = new int[d.x.length];
+            int[] visible = d.visible;
+            float[] x = d.x, y = d.y, tx = d.tickStartX, ty = d.tickStartY, radius = d.radius;
+            Image[] images = d.images;
+
+            int visibleCount = 0;
+            for(int i=0; i<d.size; i++) {
+                float r = radius[i];
+                if(r == 0 || Image.definitelyBlank(images[i])) continue;
+                float px = (interpolate ? tx[i] + (x[i] - tx[i]) * alpha : x[i]) - viewX;
+                float py = (interpolate ? ty[i] + (y[i] - ty[i]) * alpha : y[i]) - viewY;
+                float sx = hx + m00 * px + m01 * py, sy = hy + m10 * px + m11 * py;
+                if(sx < -r || sy < -r || sx > w + r || sy > h + r) continue;
+                visible[visibleCount++] = i;
+            }
+            d.visibleCount = visibleCount;
+            if(visibleCount != 0) {
+                visibleStores.add(d);
+                count += visibleCount;
+            }
+        }
+        visibleStores.sort(DenseEntities::comparePaintOrder);
+        return count;
+    }
+
+    /**
+     * Writes the draw objects for the visible entities of the given store.
+     *
+     * @param d The store to draw
+     * @param drawObjects The draw objects to write into
+     * @param index The index of the first draw object to write
+     * @param cameraAngle The (interpolated) angle of the camera
+     * @param alpha The interpolation factor, 1 if not interpolating
+     * @return The index of the next draw object to write
+     */
+    private int prepareEntities(DenseEntities d, List<DrawObject> drawObjects, int index, float cameraAngle, float alpha) {
+        float hx = halfResolution.x, hy = halfResolution.y;
+        boolean interpolate = alpha != 1;
+        float[] x = d.x, y = d.y, tx = d.tickStartX, ty = d.tickStartY, angle = d.angle;
+        int[] visible = d.visible;
+
+        for(int k=0; k<d.visibleCount; k++) {
+            int i = visible[k];
+            float px = (interpolate ? tx[i] + (x[i] - tx[i]) * alpha : x[i]) - viewX;
+            float py = (interpolate ? ty[i] + (y[i] - ty[i]) * alpha : y[i]) - viewY;
+
+            DrawObject drawObject = drawObjects.get(index++);
+            drawObject.image = Image.getImplementation(d.images[i]);
+            drawObject.rotation = angle[i] - cameraAngle;
+            drawObject.screenLocation.x = (int) (hx + m00 * px + m01 * py);
+            drawObject.screenLocation.y = (int) (hy + m10 * px + m11 * py);
+        }
+        return index;
     }
 
     /**
@@ -487,7 +776,32 @@ public class Camera {
         // Don't return drawObjects here, the whole list will be reused as much as
         // possible and excess will be returned during the next prepareRender() call
 
-        return renderDuration = System.nanoTime() - start;
+        renderDuration = System.nanoTime() - start;
+        Application.frameTimes.record(FramePhase.RENDER, renderDuration);
+        return renderDuration;
+    }
+
+    /**
+     * Renders the given snapshot, previously prepared using {@link #prepareRender(FrameSnapshot)}.
+     * The snapshot must be owned by the calling thread.
+     *
+     * @param snapshot The snapshot to render
+     * @return The time the rendering took, in milliseconds
+     */
+    public long render(FrameSnapshot snapshot) {
+
+        long start = System.nanoTime();
+
+        // Did anything change?
+        if(Time.realTime() - lastRenderTime < 1 && lastRenderHash == (lastRenderHash = snapshot.hash))
+            return renderDuration = System.nanoTime() - start;
+        lastRenderTime = Time.realTime();
+
+        DISPLAY.draw(snapshot.toArray(), snapshot.background);
+
+        renderDuration = System.nanoTime() - start;
+        Application.frameTimes.record(FramePhase.RENDER, renderDuration);
+        return renderDuration;
     }
 
 
@@ -0,0 +1,51 @@
+package com.github.rccookie.engine2d;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Converts the gameobjects of a {@link ChunkedMap} from and to the binary data
+ * stored in the chunk files.
+ */
+public interface ChunkCodec {
+
+    /**
+     * Returns whether the given gameobject should be streamed out together with the
+     * chunk it is located in. Gameobjects that are not streamed stay on the map when
+     * their chunk gets unloaded. The default implementation streams all gameobjects.
+     * The gameobject of the active camera and the activators of the map are never
+     * streamed.
+     *
+     * @param object The gameobject to test
+     * @return Whether to stream the gameobject
+     */
+    default boolean isStreamed(@NotNull GameObject object) {
+        return true;
+    }
+
+    /**
+     * Writes the state of the given gameobject. Called on the update thread while the
+     * gameobject is still on the map.
+     *
+     * @param object The gameobject to write
+     * @param out The output to write to
+     * @throws IOException If an I/O exception occurs
+     */
+    void write(@NotNull GameObject object, @NotNull DataOutput out) throws IOException;
+
+    /**
+     * Creates a gameobject from the data written by {@link #write(GameObject, DataOutput)}.
+     * Called on a background thread, so the created gameobject must not be placed
+     * on a map or access any other state shared with the update thread. It will be
+     * added to the map on the update thread afterwards.
+     *
+     * @param in The input to read from
+     * @return The created gameobject, not on any map
+     * @throws IOException If an I/O exception occurs
+     */
+    @NotNull
+    GameObject read(@NotNull DataInput in) throws IOException;
+}
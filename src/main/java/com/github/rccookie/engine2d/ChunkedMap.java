@@ -0,0 +1,483 @@
+package com.github.rccookie.engine2d;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.util.ArgumentOutOfRangeException;
+import com.github.rccookie.util.Arguments;
+import com.github.rccookie.util.Console;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A map that divides the world into square chunks and keeps only the chunks near
+ * the active camera's gameobject and the {@link #addActivator(GameObject) activators}
+ * in memory. All other chunks are stored in files in a directory, one file per chunk,
+ * and loaded again when an activator approaches them.
+ *
+ * <p>Chunks within the load radius around an activator are loaded. Chunks outside
+ * of it stay loaded until more chunks are loaded than the residency budget allows;
+ * then the chunks furthest away from all activators are unloaded. Reading and
+ * writing the chunk files and creating the gameobjects happens on a background
+ * thread, only adding the loaded gameobjects to the map happens on the update
+ * thread. The state of the unloaded gameobjects is captured on the update thread
+ * as well, using the {@link ChunkCodec} of the map.</p>
+ *
+ * <p>A gameobject belongs to the chunk its location is in at the time the chunk gets
+ * unloaded. Chunks without a file are empty. To create a world, gameobjects can
+ * simply be added to the map; they are written to the chunk files once their
+ * chunks get unloaded, or when calling {@link #unloadAll()}.</p>
+ *
+ * <p>Chunk files are written to a temporary file first, which then replaces the
+ * chunk file, so a chunk file is never left half-written. If a chunk file cannot
+ * be read, the chunk is not considered loaded and its file is never overwritten;
+ * loading it is retried after {@link #LOAD_RETRY_DELAY} nanoseconds if it is still
+ * in range of an activator.</p>
+ */
+public class ChunkedMap extends Map {
+
+    /**
+     * Time in nanoseconds after which loading a chunk whose file could not be read
+     * is retried.
+     */
+    public static final long LOAD_RETRY_DELAY = 5_000_000_000L;
+
+    /**
+     * State of a chunk that is known to the map.
+     */
+    private static final class Chunk {
+
+        final int x, y;
+        /**
+         * Whether the chunk has been loaded, as opposed to being loaded currently.
+         */
+        boolean loaded = false;
+        /**
+         * Whether reading the chunk file failed. Such a chunk is never loaded and
+         * thus never written.
+         */
+        boolean failed = false;
+        /**
+         * {@link System#nanoTime()} after which loading a failed chunk is retried.
+         */
+        long retryTime;
+        /**
+         * Distance to the closest activator, used to sort chunks for unloading.
+         */
+        float distance;
+
+        Chunk(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * The result of loading a chunk on the background thread.
+     */
+    private static final class LoadResult {
+
+        final Chunk chunk;
+        /**
+         * The objects read, or {@code null} if the chunk file could not be read.
+         */
+        final List<GameObject> objects;
+
+        LoadResult(Chunk chunk, List<GameObject> objects) {
+            this.chunk = chunk;
+            this.objects = objects;
+        }
+    }
+
+
+    /**
+     * The directory containing the chunk files.
+     */
+    private final Path directory;
+
+    /**
+     * Converts the gameobjects from and to the chunk file contents.
+     */
+    private final ChunkCodec codec;
+
+    /**
+     * The side length of each chunk.
+     */
+    private final float chunkSize;
+
+    /**
+     * Chunks within this distance from an activator get loaded.
+     */
+    private float loadRadius;
+
+    /**
+     * The maximum number of loaded chunks, unless more are within the load radius.
+     */
+    private int residencyBudget;
+
+    /**
+     * The chunks that are loaded or being loaded, by their packed coordinates.
+     */
+    private final java.util.Map<Long, Chunk> chunks = new HashMap<>();
+
+    /**
+     * Number of chunks with {@link Chunk#loaded} set. Chunks that failed to load are
+     * not counted.
+     */
+    private int loadedCount = 0;
+
+    /**
+     * Chunks loaded on the background thread, waiting to be added to the map.
+     */
+    private final Queue<LoadResult> loadResults = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Reads and writes the chunk files. A single thread keeps the operations on
+     * each chunk file in order.
+     */
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Chunk IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Reused list for spatial index queries.
+     */
+    private final List<GameObject> chunkQuery = new ArrayList<>();
+
+
+    /**
+     * Creates a new chunked map.
+     *
+     * @param directory The directory to store the chunk files in. Will be created if
+     *                  it does not exist.
+     * @param codec The codec to convert the gameobjects from and to the chunk files
+     * @param chunkSize The width and height of each chunk
+     * @param loadRadius The distance from the activators within which chunks get loaded
+     * @param residencyBudget The maximum number of chunks to keep loaded, unless more
+     *                        chunks are within the load radius
+     */
+    public ChunkedMap(@NotNull Path directory, @NotNull ChunkCodec codec, float chunkSize, float loadRadius, int residencyBudget) {
+        this.directory = Arguments.checkNull(directory, "directory");
+        this.codec = Arguments.checkNull(codec, "codec");
+        this.chunkSize = SpatialIndex.checkSize(chunkSize, "chunkSize");
+        setLoadRadius(loadRadius);
+        setResidencyBudget(residencyBudget);
+        try {
+            Files.createDirectories(directory);
+        } catch(IOException e) {
+            throw new IllegalArgumentException("Cannot create chunk directory " + directory, e);
+        }
+    }
+
+
+    @Override
+    void update() {
+        applyLoadedChunks();
+        // Index the loaded objects before possibly unloading their chunk again
+        applyStructuralChanges();
+        streamChunks();
+        super.update();
+    }
+
+    /**
+     * Adds the objects of all chunks loaded on the background thread to the map.
+     * The objects are added together with the other structural changes at the
+     * start of the map update.
+     */
+    private void applyLoadedChunks() {
+        LoadResult result;
+        while((result = loadResults.poll()) != null) {
+            if(chunks.get(key(result.chunk.x, result.chunk.y)) != result.chunk) continue;
+            if(result.objects == null) {
+                // Never mark as loaded, otherwise unloading would overwrite the file
+                result.chunk.failed = true;
+                result.chunk.retryTime = System.nanoTime() + LOAD_RETRY_DELAY;
+                continue;
+            }
+            result.chunk.loaded = true;
+            loadedCount++;
+            addAll(result.objects);
+        }
+    }
+
+    /**
+     * Requests all chunks in range of the activators that are not loaded yet, and
+     * unloads the chunks furthest away if the residency budget is exceeded.
+     */
+    private void streamChunks() {
+        List<GameObject> activators = activators();
+        if(activators.isEmpty()) return;
+
+        long now = System.nanoTime();
+        for(GameObject activator : activators) {
+            float x = activator.location.x, y = activator.location.y, r = loadRadius;
+            int minX = chunk(x - r), minY = chunk(y - r), maxX = chunk(x + r), maxY = chunk(y + r);
+            for(int cx=minX; cx<=maxX; cx++) for(int cy=minY; cy<=maxY; cy++) {
+                if(distance(cx, cy, x, y) > r) continue;
+                Chunk chunk = chunks.get(key(cx, cy));
+                if(chunk == null || (chunk.failed && now - chunk.retryTime >= 0))
+                    load(cx, cy);
+            }
+        }
+        // Forget failed chunks out of range, they will be retried once in range again
+        chunks.values().removeIf(c -> c.failed && now - c.retryTime >= 0);
+
+        if(loadedCount <= residencyBudget) return;
+
+        List<Chunk> candidates = new ArrayList<>();
+        for(Chunk chunk : chunks.values()) {
+            if(!chunk.loaded) continue;
+            chunk.distance = Float.POSITIVE_INFINITY;
+            for(GameObject activator : activators)
+                chunk.distance = Math.min(chunk.distance, distance(chunk.x, chunk.y, activator.location.x, activator.location.y));
+            if(chunk.distance > loadRadius) candidates.add(chunk);
+        }
+        candidates.sort((a, b) -> Float.compare(b.distance, a.distance));
+
+        for(int i=0; i<candidates.size() && loadedCount > residencyBudget; i++)
+            unload(candidates.get(i));
+    }
+
+    /**
+     * Starts loading the given chunk on the background thread. If the chunk file
+     * cannot be read, the chunk will be marked as failed rather than loaded.
+     */
+    private void load(int x, int y) {
+        Chunk chunk = new Chunk(x, y);
+        chunks.put(key(x, y), chunk);
+        Path file = file(x, y);
+        io.execute(() -> {
+            List<GameObject> objects;
+            try {
+                objects = read(file);
+            } catch(Exception e) {
+                Console.error("Failed to load chunk [" + x + "|" + y + "], retrying later:");
+                Console.error(e);
+                objects = null;
+            }
+            loadResults.add(new LoadResult(chunk, objects));
+        });
+    }
+
+    /**
+     * Captures the state of the objects in the given chunk, removes them from the map
+     * and writes them to the chunk file on the background thread.
+     */
+    private void unload(Chunk chunk) {
+        chunks.remove(key(chunk.x, chunk.y));
+        loadedCount--;
+
+        float minX = chunk.x * chunkSize, minY = chunk.y * chunkSize;
+        float maxX = minX + chunkSize, maxY = minY + chunkSize;
+        List<GameObject> objects = new ArrayList<>();
+        chunkQuery.clear();
+        indexMovedObjects();
+        spatialIndex.query(minX, minY, maxX, maxY, chunkQuery);
+        for(GameObject o : chunkQuery) {
+            // The query bounds are inclusive, but each object belongs to a single chunk
+            if(chunk(o.location.x) != chunk.x || chunk(o.location.y) != chunk.y) continue;
+            if(isActivator(o) || !codec.isStreamed(o)) continue;
+            objects.add(o);
+        }
+        chunkQuery.clear();
+
+        byte[] data;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(objects.size());
+            for(GameObject o : objects) codec.write(o, out);
+            out.flush();
+            data = bytes.toByteArray();
+        } catch(Exception e) {
+            // Keep the objects on the map rather than losing them
+            Console.error("Failed to save chunk [" + chunk.x + "|" + chunk.y + "]:");
+            Console.error(e);
+            chunks.put(key(chunk.x, chunk.y), chunk);
+            loadedCount++;
+            return;
+        }
+        removeAll(objects);
+
+        Path file = file(chunk.x, chunk.y);
+        io.execute(() -> {
+            try {
+                write(file, data);
+            } catch(Exception e) {
+                Console.error("Failed to write chunk [" + chunk.x + "|" + chunk.y + "]:");
+                Console.error(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the given data to a temporary file and then replaces the given chunk
+     * file with it, so that the chunk file is never half-written.
+     */
+    private static void write(Path file, byte[] data) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, data);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the objects from the given chunk file.
+     */
+    private List<GameObject> read(Path file) throws IOException {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch(NoSuchFileException e) {
+            return Collections.emptyList();
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int count = in.readInt();
+        List<GameObject> objects = new ArrayList<>(count);
+        for(int i=0; i<count; i++) {
+            GameObject o = codec.read(in);
+            if(o.getMap() != null)
+                throw new IllegalStateException("Gameobjects read from a chunk must not be on a map");
+            objects.add(o);
+        }
+        return objects;
+    }
+
+    /**
+     * Unloads all loaded chunks and writes them to their files, independent of the
+     * distance to the activators. Objects on the map that are in no loaded chunk are
+     * not written. Chunks in range of an activator will be loaded again by the next
+     * update.
+     */
+    public void unloadAll() {
+        applyLoadedChunks();
+        applyStructuralChanges();
+        for(Chunk chunk : new ArrayList<>(chunks.values()))
+            if(chunk.loaded) unload(chunk);
+        applyStructuralChanges();
+    }
+
+    /**
+     * Blocks until all chunk files currently being read or written have been processed,
+     * and stops the background thread. The map should not be updated afterwards.
+     * Usually called after {@link #unloadAll()} when closing the world.
+     *
+     * @param timeout The maximum time to wait, in seconds
+     * @return Whether all operations were processed within the timeout
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean shutdown(float timeout) throws InterruptedException {
+        io.shutdown();
+        return io.awaitTermination((long) (timeout * 1000), TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Returns the side length of the chunks.
+     *
+     * @return The chunk size
+     */
+    public float getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the number of chunks currently loaded.
+     *
+     * @return The number of loaded chunks
+     */
+    public int getLoadedChunkCount() {
+        return loadedCount;
+    }
+
+    /**
+     * Returns the distance from the activators within which chunks get loaded.
+     *
+     * @return The load radius
+     */
+    public float getLoadRadius() {
+        return loadRadius;
+    }
+
+    /**
+     * Sets the distance from the activators within which chunks get loaded. A chunk
+     * is in range if any point of it is within that distance.
+     *
+     * @param loadRadius The load radius to set
+     */
+    public void setLoadRadius(float loadRadius) {
+        if(!(loadRadius >= 0) || Float.isInfinite(loadRadius))
+            throw new ArgumentOutOfRangeException("Load radius must be non-negative and finite, got " + loadRadius);
+        this.loadRadius = loadRadius;
+    }
+
+    /**
+     * Returns the maximum number of chunks to keep loaded.
+     *
+     * @return The residency budget
+     */
+    public int getResidencyBudget() {
+        return residencyBudget;
+    }
+
+    /**
+     * Sets the maximum number of chunks to keep loaded. Chunks within the load radius
+     * are always loaded, even if they exceed the budget.
+     *
+     * @param residencyBudget The residency budget to set
+     */
+    public void setResidencyBudget(int residencyBudget) {
+        if(residencyBudget < 0)
+            throw new ArgumentOutOfRangeException("Negative residency budget");
+        this.residencyBudget = residencyBudget;
+    }
+
+
+    /**
+     * Returns the coordinate of the chunk containing the given location coordinate.
+     */
+    private int chunk(float coordinate) {
+        return (int) Math.floor(coordinate / chunkSize);
+    }
+
+    /**
+     * Returns the distance from the given location to the closest point of the
+     * given chunk.
+     */
+    private float distance(int chunkX, int chunkY, float x, float y) {
+        float minX = chunkX * chunkSize, minY = chunkY * chunkSize;
+        float dx = Math.max(0, Math.max(minX - x, x - (minX + chunkSize)));
+        float dy = Math.max(0, Math.max(minY - y, y - (minY + chunkSize)));
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private Path file(int x, int y) {
+        return directory.resolve(x + "_" + y + ".chunk");
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
@@ -39,6 +39,7 @@ public abstract class Collider extends Component {
         gameObject.colliders.add(this);
         if(gameObject.body != null)
             generateFixture(gameObject.body);
+        else gameObject.updateBody();
     }
 
     /**
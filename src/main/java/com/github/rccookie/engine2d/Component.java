@@ -1,5 +1,7 @@
 package com.github.rccookie.engine2d;
 
+import java.nio.ByteBuffer;
+
 import com.github.rccookie.engine2d.coroutine.LocalExecutionManager;
 import com.github.rccookie.engine2d.core.LocalInputManager;
 import com.github.rccookie.engine2d.util.NamedLazyEvent;
@@ -83,4 +85,35 @@ public abstract class Component {
     public boolean isEnabled() {
         return enabled;
     }
+
+    /**
+     * Called when the gameobject this component is attached to gets recycled by
+     * its {@link Prefab}, after it was removed from its map. Should restore the
+     * state of this component to the state it had when the gameobject was created
+     * by the prefab, so that it can be reused by the next spawn. Intended to be
+     * overridden. Default implementation does nothing.
+     */
+    protected void onReset() {
+    }
+
+    /**
+     * Writes the state of this component into a {@link MapSnapshot}, at the current
+     * position of the given buffer. The buffer grows as needed. Intended to be
+     * overridden by components with state that should survive a snapshot. Default
+     * implementation writes nothing.
+     *
+     * @param out The buffer to write to
+     */
+    protected void writeSnapshot(ByteBuffer out) {
+    }
+
+    /**
+     * Restores the state written by {@link #writeSnapshot(ByteBuffer)}. Called on a
+     * component of a newly created gameobject before the gameobject is added to the
+     * map. The buffer contains exactly the written data.
+     *
+     * @param in The buffer to read from
+     */
+    protected void readSnapshot(ByteBuffer in) {
+    }
 }
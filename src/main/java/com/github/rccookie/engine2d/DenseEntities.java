@@ -0,0 +1,406 @@
+package com.github.rccookie.engine2d;
+
+import java.util.Arrays;
+
+import com.github.rccookie.engine2d.image.Image;
+import com.github.rccookie.util.ArgumentOutOfRangeException;
+import com.github.rccookie.util.Arguments;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Dense storage for large numbers of simple, particle-like entities on a map.
+ * Unlike gameobjects, entities have no events, components or physics body: they
+ * only consist of a transform, a velocity and an image. The transforms are stored
+ * in primitive arrays, one per property, so that moving, culling and rendering them
+ * are tight loops over contiguous memory. This makes six-figure entity counts
+ * feasible.
+ *
+ * <p>Entities are identified by an id returned by {@link #add(float, float, Image)}
+ * that stays valid until the entity is removed. Internally the entities are kept
+ * packed, so removing an entity moves the last entity into its place.</p>
+ *
+ * <p>Each frame, the location and angle of every entity are advanced by its
+ * velocity and angular velocity, as part of the map's physics update. All entities
+ * of a store are painted on the store's render layer and z-index.</p>
+ */
+public final class DenseEntities {
+
+    /**
+     * The map the entities are on.
+     */
+    final Map map;
+
+    /**
+     * Transform columns, indexed by the packed index of an entity.
+     */
+    float[] x, y, angle, vx, vy, rotation;
+
+    /**
+     * Locations at the start of the current tick, for interpolation.
+     */
+    float[] tickStartX, tickStartY;
+
+    /**
+     * Images of the entities, and the radii of their bounding circles.
+     */
+    Image[] images;
+    float[] radius;
+
+    /**
+     * Id to packed index, -1 for unused ids.
+     */
+    private int[] indexOf;
+
+    /**
+     * Packed index to id.
+     */
+    private int[] idOf;
+
+    /**
+     * Number of entities.
+     */
+    int size = 0;
+
+    /**
+     * Head of the list of free ids, chained through {@link #indexOf}.
+     */
+    private int freeId = -1;
+
+    /**
+     * Number of ids used so far.
+     */
+    private int idCount = 0;
+
+    /**
+     * Render layer and z-index of all entities.
+     */
+    private int renderLayer = 0, zIndex = 0;
+
+    /**
+     * Order relative to other stores and gameobjects with the same layer and z-index.
+     */
+    final long paintOrder;
+
+    /**
+     * Packed indices of the entities visible in the frame currently being prepared,
+     * written by the camera.
+     */
+    int[] visible = new int[0];
+    int visibleCount = 0;
+
+
+    /**
+     * Creates a new, empty entity store on the given map.
+     *
+     * @param map The map to place the entities on
+     */
+    public DenseEntities(@NotNull Map map) {
+        this(map, 64);
+    }
+
+    /**
+     * Creates a new, empty entity store on the given map.
+     *
+     * @param map The map to place the entities on
+     * @param initialCapacity The number of entities to reserve memory for
+     */
+    public DenseEntities(@NotNull Map map, int initialCapacity) {
+        this.map = Arguments.checkNull(map, "map");
+        if(initialCapacity < 0)
+            throw new ArgumentOutOfRangeException("Negative capacity");
+        allocate(Math.max(initialCapacity, 4));
+        paintOrder = map.nextPaintOrder++;
+        map.denseEntities.add(this);
+    }
+
+
+    /**
+     * Adds a new entity at the given location.
+     *
+     * @param x The x coordinate of the entity
+     * @param y The y coordinate of the entity
+     * @param image The image of the entity, or {@code null} for an invisible entity
+     * @return The id of the new entity
+     */
+    public int add(float x, float y, @Nullable Image image) {
+        if(size == this.x.length) allocate(size * 2);
+
+        int id;
+        if(freeId != -1) {
+            id = freeId;
+            freeId = -2 - indexOf[id];
+        }
+        else {
+            if(idCount == indexOf.length)
+                indexOf = Arrays.copyOf(indexOf, idCount * 2);
+            id = idCount++;
+        }
+
+        int i = size++;
+        indexOf[id] = i;
+        idOf[i] = id;
+        this.x[i] = tickStartX[i] = x;
+        this.y[i] = tickStartY[i] = y;
+        angle[i] = vx[i] = vy[i] = rotation[i] = 0;
+        setImageAt(i, image);
+        return id;
+    }
+
+    /**
+     * Removes the entity with the given id. The id may be reused for entities
+     * added afterwards.
+     *
+     * @param id The id of the entity to remove
+     */
+    public void remove(int id) {
+        int i = index(id);
+        int last = --size;
+        if(i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            angle[i] = angle[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+            rotation[i] = rotation[last];
+            tickStartX[i] = tickStartX[last];
+            tickStartY[i] = tickStartY[last];
+            images[i] = images[last];
+            radius[i] = radius[last];
+            int movedId = idOf[last];
+            idOf[i] = movedId;
+            indexOf[movedId] = i;
+        }
+        images[last] = null;
+        // Free ids are marked with a negative value that also links to the next free id
+        indexOf[id] = -2 - freeId;
+        freeId = id;
+    }
+
+    /**
+     * Removes all entities.
+     */
+    public void clear() {
+        Arrays.fill(images, 0, size, null);
+        size = 0;
+        idCount = 0;
+        freeId = -1;
+    }
+
+    /**
+     * Returns the number of entities.
+     *
+     * @return The entity count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether an entity with the given id exists.
+     *
+     * @param id The id to test
+     * @return Whether the id belongs to an entity
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < idCount && indexOf[id] >= 0;
+    }
+
+    public float getX(int id) {
+        return x[index(id)];
+    }
+
+    public float getY(int id) {
+        return y[index(id)];
+    }
+
+    public float getAngle(int id) {
+        return angle[index(id)];
+    }
+
+    public float getVelocityX(int id) {
+        return vx[index(id)];
+    }
+
+    public float getVelocityY(int id) {
+        return vy[index(id)];
+    }
+
+    public float getRotation(int id) {
+        return rotation[index(id)];
+    }
+
+    public Image getImage(int id) {
+        return images[index(id)];
+    }
+
+    /**
+     * Sets the location of the entity with the given id. The location is not
+     * interpolated from the previous location.
+     *
+     * @param id The id of the entity
+     * @param x The x coordinate to set
+     * @param y The y coordinate to set
+     */
+    public void setLocation(int id, float x, float y) {
+        int i = index(id);
+        this.x[i] = tickStartX[i] = x;
+        this.y[i] = tickStartY[i] = y;
+    }
+
+    public void setAngle(int id, float angle) {
+        this.angle[index(id)] = angle;
+    }
+
+    /**
+     * Sets the velocity of the entity with the given id.
+     *
+     * @param id The id of the entity
+     * @param vx The velocity in x direction, in pixels per second
+     * @param vy The velocity in y direction, in pixels per second
+     */
+    public void setVelocity(int id, float vx, float vy) {
+        int i = index(id);
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+    }
+
+    /**
+     * Sets the angular velocity of the entity with the given id.
+     *
+     * @param id The id of the entity
+     * @param rotation The angular velocity, in degrees per second
+     */
+    public void setRotation(int id, float rotation) {
+        this.rotation[index(id)] = rotation;
+    }
+
+    public void setImage(int id, @Nullable Image image) {
+        setImageAt(index(id), image);
+    }
+
+    public int getRenderLayer() {
+        return renderLayer;
+    }
+
+    /**
+     * Sets the render layer of all entities of this store.
+     *
+     * @param renderLayer The render layer to set
+     * @see GameObject#setRenderLayer(int)
+     */
+    public void setRenderLayer(int renderLayer) {
+        this.renderLayer = renderLayer;
+    }
+
+    public int getZIndex() {
+        return zIndex;
+    }
+
+    /**
+     * Sets the z-index of all entities of this store.
+     *
+     * @param zIndex The z-index to set
+     * @see GameObject#setZIndex(int)
+     */
+    public void setZIndex(int zIndex) {
+        this.zIndex = zIndex;
+    }
+
+    /**
+     * Removes this store and all its entities from its map.
+     */
+    public void dispose() {
+        clear();
+        map.denseEntities.remove(this);
+    }
+
+
+
+    /**
+     * Stores the current locations as locations at the start of the current tick.
+     */
+    void storeTickTransforms() {
+        System.arraycopy(x, 0, tickStartX, 0, size);
+        System.arraycopy(y, 0, tickStartY, 0, size);
+    }
+
+    /**
+     * Advances all entities by their velocities.
+     *
+     * @param dt The time to advance, in seconds
+     */
+    void step(float dt) {
+        float[] x = this.x, y = this.y, angle = this.angle, vx = this.vx, vy = this.vy, rotation = this.rotation;
+        for(int i=0; i<size; i++) {
+            x[i] += vx[i] * dt;
+            y[i] += vy[i] * dt;
+            angle[i] += rotation[i] * dt;
+        }
+    }
+
+    /**
+     * Compares the paint order of this store with the given gameobject.
+     *
+     * @param o The gameobject to compare with
+     * @return A negative value if this store is painted below the gameobject
+     */
+    int comparePaintOrder(GameObject o) {
+        if(renderLayer != o.getRenderLayer()) return Integer.compare(renderLayer, o.getRenderLayer());
+        if(zIndex != o.getZIndex()) return Integer.compare(zIndex, o.getZIndex());
+        return Long.compare(paintOrder, o.paintOrder);
+    }
+
+    /**
+     * Compares the paint order of this store with the given one.
+     *
+     * @param o The store to compare with
+     * @return A negative value if this store is painted below the other one
+     */
+    int comparePaintOrder(DenseEntities o) {
+        if(renderLayer != o.renderLayer) return Integer.compare(renderLayer, o.renderLayer);
+        if(zIndex != o.zIndex) return Integer.compare(zIndex, o.zIndex);
+        return Long.compare(paintOrder, o.paintOrder);
+    }
+
+    private int index(int id) {
+        if(!contains(id))
+            throw new IllegalArgumentException("No entity with id " + id);
+        return indexOf[id];
+    }
+
+    private void setImageAt(int i, Image image) {
+        images[i] = image;
+        radius[i] = image != null ? 0.5f * (float) Math.sqrt(image.size.x * image.size.x + image.size.y * image.size.y) : 0;
+    }
+
+    private void allocate(int capacity) {
+        if(x == null) {
+            x = new float[capacity];
+            y = new float[capacity];
+            angle = new float[capacity];
+            vx = new float[capacity];
+            vy = new float[capacity];
+            rotation = new float[capacity];
+            tickStartX = new float[capacity];
+            tickStartY = new float[capacity];
+            radius = new float[capacity];
+            images = new Image[capacity];
+            idOf = new int[capacity];
+            indexOf = new int[capacity];
+            return;
+        }
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        angle = Arrays.copyOf(angle, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+        tickStartX = Arrays.copyOf(tickStartX, capacity);
+        tickStartY = Arrays.copyOf(tickStartY, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        images = Arrays.copyOf(images, capacity);
+        idOf = Arrays.copyOf(idOf, capacity);
+    }
+}
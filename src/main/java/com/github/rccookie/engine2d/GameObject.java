@@ -1,8 +1,13 @@
 package com.github.rccookie.engine2d;
 
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import com.github.rccookie.engine2d.coroutine.LocalExecutionManager;
@@ -15,9 +20,9 @@ import com.github.rccookie.event.BiParamEvent;
 import com.github.rccookie.event.CaughtBiParamEvent;
 import com.github.rccookie.event.Event;
 import com.github.rccookie.event.LazyEvent;
-import com.github.rccookie.event.action.Action;
 import com.github.rccookie.event.action.IAction;
 import com.github.rccookie.geometry.performance.float2;
+import com.github.rccookie.util.Arguments;
 import com.github.rccookie.util.ListStream;
 import com.github.rccookie.util.ModIterableArrayList;
 
@@ -35,7 +40,11 @@ import org.jetbrains.annotations.Nullable;
 public class GameObject {
 
     /**
-     * The location of the gameobject on the map. May be modified.
+     * The location of the gameobject on the map. May be modified. Changes made
+     * during the update of the map are picked up by the map's spatial index after
+     * the physics step. Changes made at other times, for example from a coroutine
+     * or input listener, should be made using {@link #setLocation(float, float)}
+     * so that proximity queries and rendering see them immediately.
      */
     public final float2 location = new float2();
     /**
@@ -51,33 +60,172 @@ public class GameObject {
      */
     public float rotation = 0;
 
+    /**
+     * The location at the start of the current simulation tick. Used to interpolate
+     * the rendered location when running with a fixed timestep.
+     */
+    final float2 tickStartLocation = new float2();
+    /**
+     * The angle at the start of the current simulation tick.
+     */
+    float tickStartAngle = 0;
+
 
     /**
      * The gameobject's image.
      */
     private Image image;
 
+    /**
+     * Radius of the bounding circle of the image, or 0 if there is no image.
+     */
+    float imageRadius = 0;
+
+    /**
+     * The render layer of this gameobject. Higher layers are painted on top.
+     */
+    private int renderLayer = 0;
+
+    /**
+     * The z-index of this gameobject within its render layer. Higher values are
+     * painted on top.
+     */
+    private int zIndex = 0;
+
+    /**
+     * The order in which this gameobject was added to its map. Among objects with
+     * the same layer and z-index, later added ones are painted on top.
+     */
+    long paintOrder = 0;
+
+    /**
+     * Source of {@link #paintKeyVersion}, increasing with every change.
+     */
+    private static final AtomicLong PAINT_KEY_VERSIONS = new AtomicLong();
+
+    /**
+     * The value of {@link #PAINT_KEY_VERSIONS} when the render layer, z-index or
+     * paint order of this gameobject last changed. Cameras keep the gameobjects that
+     * did not change since the last frame in their previous order.
+     */
+    long paintKeyVersion = 0;
+
+    /**
+     * The last culling pass of a camera that found this gameobject visible.
+     */
+    long visibleStamp = 0;
+
+    /**
+     * The last culling pass that kept this gameobject in its previous paint order.
+     */
+    long keptStamp = 0;
+
+    /**
+     * Sorts gameobjects by their paint order, from back to top.
+     */
+    static final Comparator<GameObject> PAINT_ORDER = (a, b) -> {
+        if(a.renderLayer != b.renderLayer) return Integer.compare(a.renderLayer, b.renderLayer);
+        if(a.zIndex != b.zIndex) return Integer.compare(a.zIndex, b.zIndex);
+        return Long.compare(a.paintOrder, b.paintOrder);
+    };
+
     /**
      * The map the gameobject is on.
      */
     Map map = null;
 
     /**
-     * Underlying physics body.
+     * The index of this gameobject in the objects list of its map.
+     */
+    int mapSlot = -1;
+
+    /**
+     * The map that has a deferred structural change of this gameobject queued, if any.
+     */
+    Map pendingMap = null;
+
+    /**
+     * The indices of this gameobject in the update lists of its map, or -1 if it
+     * is not registered for the respective update.
+     */
+    int updateSlot = -1, lateUpdateSlot = -1;
+
+    /**
+     * Whether this gameobject is currently suspended because it is outside the
+     * activation radius of its map.
+     */
+    boolean suspended = false;
+
+    /**
+     * The index of this gameobject in the active objects of its map, or -1.
+     */
+    int activeSlot = -1;
+
+    /**
+     * The last activation update of the map in which this gameobject was in range.
+     */
+    long activationStamp = 0;
+
+    /**
+     * The prefab that created this gameobject, if any.
+     */
+    Prefab<?> prefab = null;
+
+    /**
+     * Whether this gameobject is currently in the pool of its prefab.
+     */
+    boolean pooled = false;
+
+    /**
+     * The bucket of the map's spatial index this gameobject is stored in.
+     */
+    SpatialIndex.Bucket spatialBucket = null;
+    /**
+     * The index of this gameobject within its {@link #spatialBucket}.
+     */
+    int spatialSlot;
+    /**
+     * Whether this gameobject was moved using {@link #setLocation(float, float)} and
+     * has not been re-indexed since.
+     */
+    boolean spatialDirty = false;
+
+    /**
+     * Underlying physics body. Only present while the gameobject is on a map and
+     * uses physics or has a collider.
      */// TODO: Move all physics into components
     Body body;
+    /**
+     * The index of this gameobject in the objects with a body of its map, or -1.
+     */
+    int bodySlot = -1;
+    /**
+     * The transform and motion as of the last synchronization with the body, used
+     * to detect changes made by the game. Only valid if {@link #bodySynced} is set.
+     */
+    private final float2 syncedLocation = new float2(), syncedVelocity = new float2();
+    private float syncedAngle, syncedRotation;
+    /**
+     * Whether the synced values are valid, i.e. the body has been synchronized at
+     * least once.
+     */
+    private boolean bodySynced = false;
+    /**
+     * Reused vector for passing values to the body, which copies them.
+     */
+    private final float2 physicsTemp = new float2();
     /**
      * Body definition to create a new body when physics are
      * enabled.
      */
-    private final BodyDef bodyData;
+    final BodyDef bodyData;
 
 
     /**
      * Count how many of the by update/lateUpdate invoked events are used. If none,
      * the respective event will be temporarily unregistered from the map update.
      */
-    private int updateUses = 0, lateUpdateUses = 0;
+    int updateUses = 0, lateUpdateUses = 0;
     /**
      * Early update event for components to attach to.
      */
@@ -119,11 +267,6 @@ public class GameObject {
         }
     };
 
-    /**
-     * The {@code update.invoke()} / {@code lateUpdate.invoke()} methods as {@link Action}.
-     */
-    private final Action updateAction = update::invoke, lateUpdateAction = lateUpdate::invoke;
-
     /**
      * Executed when the gameobject changes map, with the new and old map as parameters.
      * The new map gets passed as first parameter.
@@ -132,8 +275,9 @@ public class GameObject {
 
     /**
      * Local input manager only active when the gameobject is on the active map.
+     * Only connected to the global input while the gameobject is on a map.
      */
-    public final LocalInputManager input = new LocalInputManager.Impl(update, this::isOnActiveMap);
+    public final LocalInputManager input = new LocalInputManager.Impl(update, this::isOnActiveMap, false);
 
     /**
      * Local execution manager only active when the gameobject is on the active map.
@@ -151,6 +295,16 @@ public class GameObject {
      */
     final Set<Collider> colliders = new HashSet<>();
 
+    /**
+     * User-defined tags of this gameobject.
+     */
+    final Set<String> tags = new HashSet<>();
+
+    /**
+     * View of {@link #tags}.
+     */
+    private final Set<String> tagsView = Collections.unmodifiableSet(tags);
+
     /**
      * Whether to use the image as collider.
      */
@@ -185,23 +339,23 @@ public class GameObject {
 
 
     private void incUpdateUse() {
-        if(updateUses++ == 0 && map != null)
-            map.gameobjectUpdate.add(updateAction);
+        if(updateUses++ == 0 && map != null && !suspended)
+            map.gameobjectUpdate.add(this);
     }
 
     private void decUpdateUse() {
-        if(--updateUses == 0 && map != null)
-            map.gameobjectUpdate.remove(updateAction);
+        if(--updateUses == 0 && updateSlot >= 0)
+            map.gameobjectUpdate.remove(this);
     }
 
     private void incLateUpdateUse() {
-        if(lateUpdateUses++ == 0 && map != null)
-            map.gameobjectLateUpdate.add(lateUpdateAction);
+        if(lateUpdateUses++ == 0 && map != null && !suspended)
+            map.gameobjectLateUpdate.add(this);
     }
 
     private void decLateUpdateUse() {
-        if(--lateUpdateUses == 0 && map != null)
-            map.gameobjectLateUpdate.remove(lateUpdateAction);
+        if(--lateUpdateUses == 0 && lateUpdateSlot >= 0)
+            map.gameobjectLateUpdate.remove(this);
     }
 
 
@@ -245,32 +399,25 @@ public class GameObject {
      * will remove the gameobject from any map. Setting the map the gameobject
      * is already on has no effect and no events will be fired.
      *
+     * <p>The change is applied immediately and overrides any change of this
+     * gameobject queued using {@link Map#addAll(Collection)} or
+     * {@link Map#removeAll(Collection)}.</p>
+     *
      * @param map The map to set
      */
     public void setMap(@Nullable Map map) {
+        if(pendingMap != null)
+            pendingMap.cancelStructuralChange(this);
         if(this.map == map) return;
-        if(this.map != null) {
-            this.map.physicsWorld.destroyBody(body);
-            body = null;
-            for(var c : colliders) c.clearFixture();
-            this.map.objects.remove(this);
-            this.map.paintOrderObjects.remove(this);
-            if(updateUses != 0)
-                this.map.gameobjectUpdate.remove(updateAction);
-            if(lateUpdateUses != 0)
-                this.map.gameobjectLateUpdate.remove(lateUpdateAction);
-        }
         Map old = this.map;
+        if(old != null) {
+            destroyBody();
+            old.detach(this);
+        }
         this.map = map;
         if(map != null) {
-            map.objects.add(this);
-            map.paintOrderObjects.add(this);
-            body = map.physicsWorld.createBody(bodyData);
-            for(var c : colliders) c.generateFixture(body);
-            if(updateUses != 0)
-                this.map.gameobjectUpdate.add(updateAction);
-            if(lateUpdateUses != 0)
-                this.map.gameobjectLateUpdate.add(lateUpdateAction);
+            map.attach(this);
+            createBody();
         }
         onMapChange.invoke(map, old);
     }
@@ -287,6 +434,35 @@ public class GameObject {
         return wasOnMap;
     }
 
+    /**
+     * Removes this gameobject from its map and returns it to the {@link Prefab} it
+     * was created by, to be reused by a later spawn. The gameobject must not be
+     * used afterwards. If the gameobject was not created by a prefab it is only
+     * removed from its map.
+     *
+     * @return Whether the gameobject was returned to a prefab
+     */
+    public boolean recycle() {
+        if(prefab == null) {
+            setMap(null);
+            return false;
+        }
+        prefab.recycleObject(this);
+        return true;
+    }
+
+    /**
+     * Returns whether this gameobject is currently suspended because it is outside
+     * the activation radius of its map. Suspended gameobjects receive no update
+     * events and are not simulated by the physics.
+     *
+     * @return Whether this gameobject is suspended
+     * @see Map#setActivationRadius(float)
+     */
+    public boolean isSuspended() {
+        return suspended;
+    }
+
     /**
      * Returns a new vector of length 1 in the direction the gameobject is currently facing.
      *
@@ -307,6 +483,34 @@ public class GameObject {
         return image;
     }
 
+    /**
+     * Moves the gameobject to the given location. Unlike modifying {@link #location}
+     * directly, the move is visible to the map's spatial index immediately, also
+     * when made outside of the map's update.
+     *
+     * @param x The x coordinate to move to
+     * @param y The y coordinate to move to
+     */
+    public void setLocation(float x, float y) {
+        location.set(x, y);
+        if(map != null && !spatialDirty) {
+            spatialDirty = true;
+            map.movedObjects.add(this);
+        }
+    }
+
+    /**
+     * Moves the gameobject to the given location. Unlike modifying {@link #location}
+     * directly, the move is visible to the map's spatial index immediately, also
+     * when made outside of the map's update.
+     *
+     * @param location The location to move to
+     */
+    public void setLocation(@NotNull float2 location) {
+        Arguments.checkNull(location, "location");
+        setLocation(location.x, location.y);
+    }
+
     /**
      * Sets the gameobject's image. A value of {@code null} will make the gameobject
      * invisible.
@@ -315,6 +519,9 @@ public class GameObject {
      */
     public void setImage(@Nullable Image image) {
         this.image = image;
+        imageRadius = image != null ? 0.5f * (float) Math.sqrt(image.size.x * image.size.x + image.size.y * image.size.y) : 0;
+        if(map != null)
+            map.maxImageRadius = Math.max(map.maxImageRadius, imageRadius);
         if(useImageCollider) {
             if(image == null) {
                 removeComponent(imageCollider);
@@ -328,6 +535,123 @@ public class GameObject {
         }
     }
 
+    /**
+     * Returns the render layer of this gameobject.
+     *
+     * @return The current render layer
+     */
+    public int getRenderLayer() {
+        return renderLayer;
+    }
+
+    /**
+     * Sets the render layer of this gameobject. Gameobjects on higher layers are
+     * always painted on top of gameobjects on lower layers, independent of their
+     * z-index. The default layer is 0.
+     *
+     * @param renderLayer The render layer to set
+     */
+    public void setRenderLayer(int renderLayer) {
+        if(this.renderLayer == renderLayer) return;
+        this.renderLayer = renderLayer;
+        paintKeyChanged();
+    }
+
+    /**
+     * Returns the z-index of this gameobject within its render layer.
+     *
+     * @return The current z-index
+     */
+    public int getZIndex() {
+        return zIndex;
+    }
+
+    /**
+     * Sets the z-index of this gameobject within its render layer. Gameobjects
+     * with a higher z-index are painted on top of gameobjects on the same layer
+     * with a lower z-index. Gameobjects with the same layer and z-index are
+     * painted in the order they were added to the map. The default z-index is 0.
+     *
+     * @param zIndex The z-index to set
+     */
+    public void setZIndex(int zIndex) {
+        if(this.zIndex == zIndex) return;
+        this.zIndex = zIndex;
+        paintKeyChanged();
+    }
+
+    /**
+     * Sets the order in which this gameobject was added to its map.
+     *
+     * @param paintOrder The paint order to set
+     */
+    void setPaintOrder(long paintOrder) {
+        this.paintOrder = paintOrder;
+        paintKeyChanged();
+    }
+
+    /**
+     * Marks the render layer, z-index or paint order of this gameobject as changed.
+     */
+    private void paintKeyChanged() {
+        paintKeyVersion = PAINT_KEY_VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Returns the version of the most recent change of any gameobject's render layer,
+     * z-index or paint order.
+     *
+     * @return The current paint key version
+     */
+    static long paintKeyVersion() {
+        return PAINT_KEY_VERSIONS.get();
+    }
+
+    /**
+     * Returns a view of the tags of this gameobject.
+     *
+     * @return The gameobject's tags
+     */
+    @NotNull
+    public Set<String> getTags() {
+        return tagsView;
+    }
+
+    /**
+     * Returns whether this gameobject has the given tag.
+     *
+     * @param tag The tag to test for
+     * @return Whether the tag is present
+     */
+    public boolean hasTag(String tag) {
+        return tags.contains(tag);
+    }
+
+    /**
+     * Adds the given tag to this gameobject. Tagged gameobjects can be found
+     * efficiently using {@link Map#objectsWithTag(String)}.
+     *
+     * @param tag The tag to add
+     * @return Whether the tag was not present before
+     */
+    public boolean addTag(@NotNull String tag) {
+        if(!tags.add(Arguments.checkNull(tag, "tag"))) return false;
+        if(map != null) map.tagAdded(this, tag);
+        return true;
+    }
+
+    /**
+     * Removes the given tag from this gameobject.
+     *
+     * @param tag The tag to remove
+     * @return Whether the tag was present before
+     */
+    public boolean removeTag(String tag) {
+        if(!tags.remove(tag)) return false;
+        if(map != null) map.tagRemoved(this, tag);
+        return true;
+    }
+
     /**
      * Returns all components attached to the gameobject that are of the specified
      * type.
@@ -365,8 +689,10 @@ public class GameObject {
         if(component.gameObject != this)
             throw new IllegalArgumentException("The component is not related to this gameobject");
         boolean out = components.remove(component);
-        if(out && component instanceof Collider)
+        if(out && component instanceof Collider) {
             colliders.remove(component);
+            updateBody();
+        }
         return out;
     }
 
@@ -402,6 +728,7 @@ public class GameObject {
         bodyData.type = usePhysics ? BodyType.DYNAMIC : BodyType.KINEMATIC;
         if(body != null)
             body.setType(bodyData.type);
+        updateBody();
     }
 
     /**
@@ -435,7 +762,7 @@ public class GameObject {
      * @return The current background friction
      */
     public float getBackgroundFriction() {
-        return body.m_linearDamping;
+        return bodyData.linearDamping;
     }
 
     /**
@@ -462,47 +789,208 @@ public class GameObject {
     }
 
     /**
-     * Prepares the physics update by updating the physics body's parameters to
-     * the currently set ones.
+     * Returns whether this gameobject needs a physics body, which is the case if it
+     * uses physics or has a collider. Other gameobjects are moved without involving
+     * the physics engine.
+     *
+     * @return Whether a body is needed
      */
-    void preparePhysicsUpdate() {
-        bodyData.position         = location.scaled(Convert.PIXELS_TO_UNITS);
-        bodyData.linearVelocity   = velocity.scaled(Convert.PIXELS_TO_UNITS);
-        bodyData.angle            = angle         * Convert.TO_RADIANS;
-        bodyData.angularVelocity  = rotation      * Convert.TO_RADIANS;
-//        bodyData.position.y       = -bodyData.position.y;
-//        bodyData.linearVelocity.y = -bodyData.position.y;
+    boolean needsBody() {
+        return bodyData.type == BodyType.DYNAMIC || !colliders.isEmpty();
+    }
+
+    /**
+     * Creates the physics body of this gameobject on its current map, including
+     * the fixtures of all colliders, if the gameobject {@link #needsBody() needs}
+     * one.
+     */
+    void createBody() {
+        if(!needsBody()) return;
+        bodyData.position.set(location.x * Convert.PIXELS_TO_UNITS, location.y * Convert.PIXELS_TO_UNITS);
+        bodyData.angle = angle * Convert.TO_RADIANS;
+        bodyData.linearVelocity.set(velocity.x * Convert.PIXELS_TO_UNITS, velocity.y * Convert.PIXELS_TO_UNITS);
+        bodyData.angularVelocity = rotation * Convert.TO_RADIANS;
+        body = map.physicsWorld.createBody(bodyData);
+        storeSyncedState();
+        if(suspended) body.setActive(false);
+        for(var c : colliders) c.generateFixture(body);
+        map.bodyCreated(this);
+    }
+
+    /**
+     * Destroys the physics body of this gameobject on its current map, if it has one.
+     */
+    void destroyBody() {
+        if(body == null) return;
+        map.physicsWorld.destroyBody(body);
+        body = null;
+        for(var c : colliders) c.clearFixture();
+        map.bodyDestroyed(this);
+    }
+
+    /**
+     * Creates or destroys the physics body if whether it is needed changed.
+     */
+    void updateBody() {
+        if(map == null) return;
+        boolean needed = needsBody();
+        if(needed && body == null) createBody();
+        else if(!needed && body != null) destroyBody();
+    }
 
+    /**
+     * Moves this gameobject according to its velocity and rotation. Used instead of
+     * the physics engine for gameobjects without a body.
+     *
+     * @param dt The time to advance, in seconds
+     */
+    void integrate(float dt) {
+        location.x += velocity.x * dt;
+        location.y += velocity.y * dt;
+        angle += rotation * dt;
+    }
+
+    /**
+     * Returns the largest distance on either axis between the location at the start
+     * of the current tick and the current location.
+     *
+     * @return The distance moved this tick
+     */
+    float tickDisplacement() {
+        return Math.max(Math.abs(location.x - tickStartLocation.x), Math.abs(location.y - tickStartLocation.y));
+    }
+
+    /**
+     * Saves the current transform as the transform at the start of the current tick.
+     */
+    void storeTickTransform() {
+        tickStartLocation.set(location);
+        tickStartAngle = angle;
+    }
+
+    /**
+     * Writes the location interpolated between the start of the current tick and the
+     * current location into the given vector.
+     *
+     * @param alpha The interpolation factor, see {@link Time#interpolation()}
+     * @param out The vector to write into
+     * @return {@code out}
+     */
+    float2 interpolatedLocation(float alpha, float2 out) {
+        out.set(tickStartLocation.x + (location.x - tickStartLocation.x) * alpha,
+                tickStartLocation.y + (location.y - tickStartLocation.y) * alpha);
+        return out;
+    }
+
+    /**
+     * Returns the angle interpolated between the start of the current tick and the
+     * current angle.
+     *
+     * @param alpha The interpolation factor, see {@link Time#interpolation()}
+     * @return The interpolated angle
+     */
+    float interpolatedAngle(float alpha) {
+        return tickStartAngle + (angle - tickStartAngle) * alpha;
+    }
+
+    /**
+     * Prepares the physics update by passing the transform and motion to the physics
+     * body, if they were changed since the last synchronization. Unchanged values are
+     * not passed, so that sleeping bodies stay asleep and fixtures are only moved in
+     * the broadphase if needed. Does not allocate.
+     */
+    void preparePhysicsUpdate() {
         assert body != null;
 
-        if(bodyData.angle != body.m_sweep.a || !bodyData.position.equals(body.m_xf.p))
-            body.setTransform(bodyData.position, bodyData.angle);
+        if(!bodySynced || location.x != syncedLocation.x || location.y != syncedLocation.y || angle != syncedAngle) {
+            physicsTemp.set(location.x * Convert.PIXELS_TO_UNITS, location.y * Convert.PIXELS_TO_UNITS);
+            body.setTransform(physicsTemp, angle * Convert.TO_RADIANS);
+        }
+        if(!bodySynced || velocity.x != syncedVelocity.x || velocity.y != syncedVelocity.y) {
+            physicsTemp.set(velocity.x * Convert.PIXELS_TO_UNITS, velocity.y * Convert.PIXELS_TO_UNITS);
+            body.setLinearVelocity(physicsTemp);
+        }
+        if(!bodySynced || rotation != syncedRotation)
+            body.setAngularVelocity(rotation * Convert.TO_RADIANS);
         if(bodyData.fixedRotation != body.isFixedRotation())
             body.setFixedRotation(bodyData.fixedRotation);
-        body.setLinearVelocity(bodyData.linearVelocity);
-        body.setAngularVelocity(bodyData.angularVelocity);
+        storeSyncedState();
     }
 
     /**
      * Evaluate the physics update by updating the gameobject's transform according
-     * to the physics body's one.
+     * to the physics body's one. Does not allocate.
      */
     void processPhysicsUpdate() {
         assert body != null;
 
-        bodyData.position.set(body.m_xf.p);
-        bodyData.linearVelocity.set(body.m_linearVelocity);
-        bodyData.angle = body.m_sweep.a;
-        bodyData.angularVelocity = body.m_angularVelocity;
+        location.set(body.m_xf.p.x * Convert.UNITS_TO_PIXELS, body.m_xf.p.y * Convert.UNITS_TO_PIXELS);
+        velocity.set(body.m_linearVelocity.x * Convert.UNITS_TO_PIXELS, body.m_linearVelocity.y * Convert.UNITS_TO_PIXELS);
+        angle =      body.m_sweep.a           * Convert.TO_DEGREES;
+        rotation =   body.m_angularVelocity   * Convert.TO_DEGREES;
+        storeSyncedState();
+    }
+
+    /**
+     * Remembers the current transform and motion as synchronized with the body.
+     */
+    private void storeSyncedState() {
+        syncedLocation.set(location);
+        syncedVelocity.set(velocity);
+        syncedAngle = angle;
+        syncedRotation = rotation;
+        bodySynced = true;
+    }
+
+
+    /**
+     * Resets the motion of this gameobject, cancels its pending executions and
+     * invokes the reset hooks of this gameobject and its components. Used when
+     * recycling the gameobject.
+     */
+    void reset() {
+        location.setZero();
+        angle = 0;
+        velocity.setZero();
+        rotation = 0;
+        storeTickTransform();
+        execute.cancelAll();
+        for(Component c : components) c.onReset();
+        onReset();
+    }
+
+    /**
+     * Called when this gameobject gets recycled by its {@link Prefab}, after it was
+     * removed from its map, its location, angle, velocity and rotation were set to
+     * 0, all coroutines started using {@link #execute} were cancelled and the
+     * {@link Component#onReset()} hooks of its components were called.
+     * Should restore any other state changed after the gameobject was created by
+     * the prefab. Intended to be overridden. Default implementation does nothing.
+     */
+    protected void onReset() {
+    }
 
-        location.set(bodyData.position)      .scale(Convert.UNITS_TO_PIXELS);
-        velocity.set(bodyData.linearVelocity).scale(Convert.UNITS_TO_PIXELS);
-        angle =      bodyData.angle               * Convert.TO_DEGREES;
-        rotation =   bodyData.angularVelocity     * Convert.TO_DEGREES;
-//        location.y = -location.y;
-//        velocity.y = -velocity.y;
+    /**
+     * Writes additional state of this gameobject into a {@link MapSnapshot}, at the
+     * current position of the given buffer. The transform, motion, image, render
+     * order, tags and physics settings are captured automatically, the state of the
+     * components using {@link Component#writeSnapshot(ByteBuffer)}. The buffer grows
+     * as needed. Intended to be overridden. Default implementation writes nothing.
+     *
+     * @param out The buffer to write to
+     */
+    protected void writeSnapshot(ByteBuffer out) {
     }
 
+    /**
+     * Restores the state written by {@link #writeSnapshot(ByteBuffer)}. Called on a
+     * newly created gameobject before it is added to the map. The buffer contains
+     * exactly the written data.
+     *
+     * @param in The buffer to read from
+     */
+    protected void readSnapshot(ByteBuffer in) {
+    }
 
     /**
      * Called once per frame. Intended to be overridden. Default implementation does nothing.
@@ -548,7 +1036,7 @@ public class GameObject {
      * @return A stream of objects found
      */
     public <T> ListStream<T> findAdjacent(float maxDist, boolean diagonal, Class<T> type) {
-        return getMap().objects().filter(diagonal ?
+        return getMap().objectsInRect(location, maxDist).filter(diagonal ?
                 o -> o != this && float2.maxDist(location, o.location) <= maxDist :
                 o -> o != this && float2.manhattanDist(location, o.location) <= maxDist).filterType(type);
     }
@@ -0,0 +1,164 @@
+package com.github.rccookie.engine2d;
+
+import java.util.List;
+
+/**
+ * Spatial index that sorts the gameobjects into the cells of a uniform, unbounded
+ * grid. Only non-empty cells are stored, in an open-addressing hash table keyed by
+ * the cell coordinates.
+ */
+final class GridIndex extends SpatialIndex {
+
+    /**
+     * A single grid cell.
+     */
+    private static final class Cell extends Bucket {
+
+        final int x, y;
+
+        Cell(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+
+    /**
+     * Inverse of the cell size.
+     */
+    private final float invCellSize;
+
+    /**
+     * Hash table of the non-empty cells, with linear probing. The length is always
+     * a power of two.
+     */
+    private Cell[] cells = new Cell[64];
+
+    /**
+     * Number of cells in the table.
+     */
+    private int cellCount = 0;
+
+
+    /**
+     * Creates a new grid index.
+     *
+     * @param cellSize The side length of each cell
+     */
+    GridIndex(float cellSize) {
+        this.invCellSize = 1 / checkSize(cellSize, "cellSize");
+    }
+
+
+    @Override
+    void insert(GameObject object) {
+        int x = cell(object.location.x), y = cell(object.location.y);
+        Cell cell = get(x, y);
+        if(cell == null) cell = put(new Cell(x, y));
+        cell.add(object);
+    }
+
+    @Override
+    void remove(GameObject object) {
+        Cell cell = (Cell) object.spatialBucket;
+        cell.remove(object);
+        if(cell.size == 0) delete(cell);
+    }
+
+    @Override
+    void update(GameObject object) {
+        Cell cell = (Cell) object.spatialBucket;
+        if(cell.x == cell(object.location.x) && cell.y == cell(object.location.y)) return;
+        remove(object);
+        insert(object);
+    }
+
+    @Override
+    void query(float minX, float minY, float maxX, float maxY, List<? super GameObject> out) {
+        int minCX = cell(minX), minCY = cell(minY), maxCX = cell(maxX), maxCY = cell(maxY);
+
+        if(((long) maxCX - minCX + 1) * ((long) maxCY - minCY + 1) > cellCount) {
+            // Fewer cells exist than the range covers, check the existing ones
+            for(Cell cell : cells)
+                if(cell != null && cell.x >= minCX && cell.x <= maxCX && cell.y >= minCY && cell.y <= maxCY)
+                    cell.collect(minX, minY, maxX, maxY, out);
+            return;
+        }
+
+        for(int x=minCX; x<=maxCX; x++) for(int y=minCY; y<=maxCY; y++) {
+            Cell cell = get(x, y);
+            if(cell != null) cell.collect(minX, minY, maxX, maxY, out);
+        }
+    }
+
+    @Override
+    void clear() {
+        for(int i=0; i<cells.length; i++) {
+            if(cells[i] != null) {
+                cells[i].clear();
+                cells[i] = null;
+            }
+        }
+        cellCount = 0;
+    }
+
+    /**
+     * Returns the cell coordinate for the given location coordinate.
+     */
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate * invCellSize);
+    }
+
+
+
+    private static int hash(int x, int y) {
+        int h = x * 0x9E3779B9 + y * 0x85EBCA6B;
+        return h ^ (h >>> 16);
+    }
+
+    private Cell get(int x, int y) {
+        int mask = cells.length - 1;
+        for(int i = hash(x, y) & mask;; i = (i + 1) & mask) {
+            Cell cell = cells[i];
+            if(cell == null || (cell.x == x && cell.y == y)) return cell;
+        }
+    }
+
+    private Cell put(Cell cell) {
+        if(++cellCount * 2 > cells.length) resize(cells.length * 2);
+        int mask = cells.length - 1;
+        int i = hash(cell.x, cell.y) & mask;
+        while(cells[i] != null) i = (i + 1) & mask;
+        return cells[i] = cell;
+    }
+
+    private void delete(Cell cell) {
+        int mask = cells.length - 1;
+        int i = hash(cell.x, cell.y) & mask;
+        while(cells[i] != cell) i = (i + 1) & mask;
+        cells[i] = null;
+        cellCount--;
+
+        // Shift back following entries of the probe sequence into the gap
+        for(int j = (i + 1) & mask; cells[j] != null; j = (j + 1) & mask) {
+            int home = hash(cells[j].x, cells[j].y) & mask;
+            if(((j - home) & mask) >= ((j - i) & mask)) {
+                cells[i] = cells[j];
+                cells[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    private void resize(int length) {
+        Cell[] old = cells;
+        cells = new Cell[length];
+        int mask = length - 1;
+        for(Cell cell : old) {
+            if(cell == null) continue;
+            int i = hash(cell.x, cell.y) & mask;
+            while(cells[i] != null) i = (i + 1) & mask;
+            cells[i] = cell;
+        }
+    }
+}
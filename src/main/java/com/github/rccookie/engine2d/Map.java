@@ -1,19 +1,25 @@
 package com.github.rccookie.engine2d;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 
-import com.github.rccookie.engine2d.coroutine.Execute;
 import com.github.rccookie.engine2d.physics.Raycast;
 import com.github.rccookie.engine2d.physics.RaycastFilter;
 import com.github.rccookie.engine2d.util.NamedCaughtEvent;
 import com.github.rccookie.event.Event;
-import com.github.rccookie.event.SimpleEvent;
 import com.github.rccookie.geometry.performance.float2;
+import com.github.rccookie.util.ArgumentOutOfRangeException;
 import com.github.rccookie.util.Arguments;
 import com.github.rccookie.util.ListStream;
 import com.github.rccookie.util.ModIterableArrayList;
@@ -26,6 +32,7 @@ import org.jbox2d.dynamics.Fixture;
 import org.jbox2d.dynamics.World;
 import org.jbox2d.dynamics.contacts.Contact;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * The map represents a container for gameobjects. It also controls
@@ -34,19 +41,161 @@ import org.jetbrains.annotations.NotNull;
 public class Map {
 
     /**
-     * Objects on this map.
+     * Objects on this map, in the order they were added. Each object stores its index
+     * in {@link GameObject#mapSlot}, so it can be removed in constant time by leaving
+     * {@code null} in its place. The gaps are closed at the start of the next update,
+     * so removing objects while iterating neither skips nor repeats any object.
      */
     final List<GameObject> objects = new ModIterableArrayList<>();
 
     /**
-     * View of {@link #objects}.
+     * Number of {@code null} gaps in {@link #objects}.
      */
-    private final List<GameObject> objectsView = Collections.unmodifiableList(objects);
+    private int objectGaps = 0;
 
     /**
-     * Objects in paint order, from back to top.
+     * View of {@link #objects} without the gaps.
      */
-    final List<GameObject> paintOrderObjects = new ArrayList<>();
+    private final Collection<GameObject> objectsView = new AbstractCollection<>() {
+        @Override
+        public @NotNull Iterator<GameObject> iterator() {
+            return new Iterator<>() {
+                int next = skipGaps(0);
+
+                @Override
+                public boolean hasNext() {
+                    // Objects may have been removed since, or added at the end
+                    next = skipGaps(next);
+                    return next < objects.size();
+                }
+
+                @Override
+                public GameObject next() {
+                    if(!hasNext()) throw new NoSuchElementException();
+                    return objects.get(next++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return getObjectCount();
+        }
+    };
+
+    /**
+     * The objects on this map that have a physics body. Each object stores its index
+     * in {@link GameObject#bodySlot}.
+     */
+    final List<GameObject> bodyObjects = new ArrayList<>();
+
+    /**
+     * The colliders of the contacts that started or ended since the last flush, two
+     * per event, in the order the events occurred.
+     */
+    private Collider[] contactColliders = new Collider[64];
+
+    /**
+     * Whether the respective contact event is the start of a contact.
+     */
+    private boolean[] contactBegins = new boolean[32];
+
+    /**
+     * The number of queued contact events.
+     */
+    private int contactEventCount = 0;
+
+    /**
+     * Stores of dense entities on this map.
+     */
+    final List<DenseEntities> denseEntities = new ArrayList<>();
+
+    /**
+     * The paint order assigned to the next object added to this map. Objects added
+     * later are painted above objects added earlier.
+     */
+    long nextPaintOrder = 0;
+
+    /**
+     * Upper bound for the radius of the bounding circles of the images of the
+     * objects on this map. Used to extend the area queried from the spatial index
+     * when rendering. Recalculated whenever the spatial index is updated.
+     */
+    float maxImageRadius = 0;
+
+    /**
+     * Spatial index over the locations of the objects, used for proximity queries.
+     */
+    SpatialIndex spatialIndex = SpatialIndex.grid(SpatialIndex.DEFAULT_CELL_SIZE);
+
+    /**
+     * Objects moved using {@link GameObject#setLocation(float, float)} that may not
+     * have been re-indexed yet.
+     */
+    final List<GameObject> movedObjects = new ArrayList<>();
+
+    /**
+     * The largest distance on either axis between the location of an object at the
+     * start of the current tick and its current location. Objects are rendered at
+     * most this far from their indexed location when interpolating.
+     */
+    float maxTickDisplacement = 0;
+
+    /**
+     * Objects on this map by their concrete class.
+     */
+    private final java.util.Map<Class<?>, Set<GameObject>> objectsByClass = new HashMap<>();
+
+    /**
+     * The buckets of {@link #objectsByClass} containing instances of the given
+     * type, for each type that has been queried so far.
+     */
+    private final java.util.Map<Class<?>, List<Set<GameObject>>> objectsByType = new HashMap<>();
+
+    /**
+     * Objects on this map by their tags.
+     */
+    private final java.util.Map<String, Set<GameObject>> objectsByTag = new HashMap<>();
+
+    /**
+     * Radius around the activators within which objects are simulated, or infinity
+     * if all objects are simulated.
+     */
+    private float activationRadius = Float.POSITIVE_INFINITY;
+
+    /**
+     * Gameobjects that keep the objects around them active, in addition to the
+     * gameobject of the active camera.
+     */
+    private final Set<GameObject> activators = new LinkedHashSet<>();
+
+    /**
+     * The activators currently on this map, refilled by {@link #activators()} to
+     * avoid allocating a new list every frame.
+     */
+    private final List<GameObject> currentActivators = new ArrayList<>();
+
+    /**
+     * The objects that are not suspended, if an activation radius is set. Each
+     * object stores its index in {@link GameObject#activeSlot}.
+     */
+    private final List<GameObject> activeObjects = new ArrayList<>();
+
+    /**
+     * Incremented on each activation update, used to mark the objects in range.
+     */
+    private long activationStamp = 0;
+
+    /**
+     * Reused list for spatial index queries.
+     */
+    private final List<GameObject> activationQuery = new ArrayList<>();
+
+    /**
+     * Queued structural changes, mapping each object to whether it should be added
+     * to ({@code true}) or removed from ({@code false}) this map.
+     */
+    private final java.util.Map<GameObject, Boolean> pendingChanges = new LinkedHashMap<>();
 
 
     /**
@@ -77,8 +226,11 @@ public class Map {
      */
     public final Event lateUpdate = new NamedCaughtEvent(false, "Map.lateUpdate");
 
-    final Event gameobjectUpdate = new SimpleEvent();
-    final Event gameobjectLateUpdate = new SimpleEvent();
+    /**
+     * The objects on this map that have update or late update listeners.
+     */
+    final UpdateList gameobjectUpdate = new UpdateList(this, false);
+    final UpdateList gameobjectLateUpdate = new UpdateList(this, true);
 
 
 
@@ -87,26 +239,17 @@ public class Map {
      */
     public Map() {
         Application.checkSetup();
+        spatialIndex.map = this;
         physicsWorld.setAutoClearForces(true);
         physicsWorld.setContactListener(new ContactListener() {
             @Override
             public void beginContact(Contact contact) {
-                Collider a = (Collider) contact.m_fixtureA.m_userData;
-                Collider b = (Collider) contact.m_fixtureB.m_userData;
-                Execute.later(() -> {
-                    a.onCollisionEnter.invoke(b);
-                    b.onCollisionEnter.invoke(a);
-                });
+                queueContactEvent(contact, true);
             }
 
             @Override
             public void endContact(Contact contact) {
-                Collider a = (Collider) contact.m_fixtureA.m_userData;
-                Collider b = (Collider) contact.m_fixtureB.m_userData;
-                Execute.later(() -> {
-                    a.onCollisionExit.invoke(b);
-                    b.onCollisionExit.invoke(a);
-                });
+                queueContactEvent(contact, false);
             }
 
             @Override
@@ -123,6 +266,14 @@ public class Map {
      */
     void update() {
         long start = System.nanoTime();
+        applyStructuralChanges();
+        closeObjectGaps();
+        List<GameObject> simulated = simulatedObjects();
+        updateActivation();
+        if(Time.isFixedTimestep()) {
+            for(GameObject o : simulated) o.storeTickTransform();
+            for(DenseEntities d : denseEntities) d.storeTickTransforms();
+        }
         this.earlyUpdate.invoke();
 //        for(int i=0; i<objects.size(); i++)
 //            objects.get(i).update.invoke();
@@ -131,9 +282,25 @@ public class Map {
         long updateDuration = System.nanoTime() - start;
 
         start = System.nanoTime();
-        for(GameObject o : objects) o.preparePhysicsUpdate();
-        physicsWorld.step(Time.delta(), 6, 2);
-        for(GameObject o : objects) o.processPhysicsUpdate();
+        float dt = Time.delta();
+        if(!bodyObjects.isEmpty()) {
+            for(GameObject o : bodyObjects) if(!o.suspended) o.preparePhysicsUpdate();
+            physicsWorld.step(dt, 6, 2);
+            for(GameObject o : bodyObjects) if(!o.suspended) o.processPhysicsUpdate();
+        }
+        // The only full pass over the index, after the last move by the simulation
+        boolean fixedTimestep = Time.isFixedTimestep();
+        float maxTickDisplacement = 0;
+        for(GameObject o : simulated) {
+            if(o == null) continue; // Removed during this update
+            if(o.body == null) o.integrate(dt);
+            o.spatialDirty = false;
+            spatialIndex.update(o);
+            if(fixedTimestep) maxTickDisplacement = Math.max(maxTickDisplacement, o.tickDisplacement());
+        }
+        this.maxTickDisplacement = maxTickDisplacement;
+        flushContactEvents();
+        for(DenseEntities d : denseEntities) d.step(Time.delta());
         physicsDuration = System.nanoTime() - start;
 
         start = System.nanoTime();
@@ -143,8 +310,6 @@ public class Map {
         this.lateUpdate.invoke();
         updateDuration += System.nanoTime() - start;
         this.updateDuration = updateDuration;
-
-//        Console.log(gameobjectUpdate.getActions().size(), "/", gameobjectLateUpdate.getActions().size(), "of", objects.size(), "update events connected");
     }
 
 
@@ -187,9 +352,535 @@ public class Map {
         physicsWorld.setAllowSleep(flag);
     }
 
+    /**
+     * Returns the number of threads used to simulate physics on this map.
+     *
+     * @return The number of physics threads
+     */
+    public int getPhysicsThreadCount() {
+        return physicsWorld.getSolverThreadCount();
+    }
+
+    /**
+     * Sets the number of threads used to simulate physics on this map, including the
+     * update thread. With more than one thread, collisions are detected concurrently if
+     * there are many of them, and groups of gameobjects that do not touch each other are
+     * simulated concurrently, which helps maps with many separate clusters of physics
+     * objects. The simulation result is the same for any number of
+     * threads, and all events are still invoked on the update thread. Defaults to 1.
+     *
+     * @param threadCount The number of threads, at least 1
+     */
+    public void setPhysicsThreadCount(int threadCount) {
+        if(threadCount < 1)
+            throw new ArgumentOutOfRangeException("Thread count must be at least 1, got " + threadCount);
+        physicsWorld.setSolverThreadCount(threadCount);
+    }
+
+
+    /**
+     * Returns the spatial index used to answer proximity queries on this map.
+     *
+     * @return The current spatial index
+     */
+    @NotNull
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * Sets the spatial index used to answer proximity queries on this map, and
+     * adds all objects on the map to it. The index must not be used by any other
+     * map.
+     *
+     * @param spatialIndex The spatial index to use
+     */
+    public void setSpatialIndex(@NotNull SpatialIndex spatialIndex) {
+        Arguments.checkNull(spatialIndex, "spatialIndex");
+        if(spatialIndex == this.spatialIndex) return;
+        if(spatialIndex.map != null)
+            throw new IllegalArgumentException("The spatial index is already used by another map");
+
+        this.spatialIndex.clear();
+        this.spatialIndex.map = null;
+        spatialIndex.map = this;
+        this.spatialIndex = spatialIndex;
+        for(GameObject o : objectsView) spatialIndex.insert(o);
+    }
+
+    /**
+     * Re-indexes all objects on this map. Simulated objects get re-indexed once per
+     * update after the physics step, and objects moved using
+     * {@link GameObject#setLocation(float, float)} before the next query. This can be
+     * used to make other moves, like direct changes of {@link GameObject#location}
+     * outside of the update, visible to proximity queries immediately.
+     */
+    public void updateSpatialIndex() {
+        float maxImageRadius = 0;
+        for(GameObject o : objectsView) {
+            o.spatialDirty = false;
+            spatialIndex.update(o);
+            maxImageRadius = Math.max(maxImageRadius, o.imageRadius);
+        }
+        movedObjects.clear();
+        this.maxImageRadius = maxImageRadius;
+    }
+
+    /**
+     * Re-indexes the objects moved using {@link GameObject#setLocation(float, float)}
+     * since they were last indexed. Called before each query of the spatial index.
+     */
+    void indexMovedObjects() {
+        if(movedObjects.isEmpty()) return;
+        for(GameObject o : movedObjects) {
+            // Might have been re-indexed since, or removed from the map
+            if(!o.spatialDirty || o.map != this) continue;
+            o.spatialDirty = false;
+            spatialIndex.update(o);
+            maxTickDisplacement = Math.max(maxTickDisplacement, o.tickDisplacement());
+        }
+        movedObjects.clear();
+    }
+
+
+    /**
+     * Returns the radius around the activators within which objects are simulated.
+     *
+     * @return The activation radius, or infinity if all objects are simulated
+     */
+    public float getActivationRadius() {
+        return activationRadius;
+    }
+
+    /**
+     * Sets the radius around the activators within which objects are simulated.
+     * Objects further away from the gameobject of the active camera and from all
+     * {@link #addActivator(GameObject) activators} are suspended: they receive no
+     * update and late update events, their physics bodies are inactive and they
+     * don't collide. They still get rendered if visible. Suspended objects resume
+     * automatically once they come back into range. Objects moved into range by
+     * other code than the simulation are only resumed if their new location has
+     * been indexed, see {@link #updateSpatialIndex()}.
+     *
+     * <p>The radius is infinite by default, meaning that all objects are simulated.</p>
+     *
+     * @param activationRadius The activation radius to set, or
+     *                         {@link Float#POSITIVE_INFINITY} to simulate all objects
+     */
+    public void setActivationRadius(float activationRadius) {
+        if(!(activationRadius > 0))
+            throw new ArgumentOutOfRangeException("Activation radius must be positive, got " + activationRadius);
+        if(activationRadius == this.activationRadius) return;
+        boolean wasEnabled = this.activationRadius != Float.POSITIVE_INFINITY;
+        this.activationRadius = activationRadius;
+        if(!wasEnabled) {
+            for(GameObject o : objectsView) activate(o);
+        }
+        else if(activationRadius == Float.POSITIVE_INFINITY) {
+            for(GameObject o : objectsView) if(o.suspended) resume(o);
+            for(GameObject o : activeObjects) o.activeSlot = -1;
+            activeObjects.clear();
+        }
+    }
+
+    /**
+     * Registers the given gameobject as activator: while it is on this map, all
+     * objects within the activation radius around it are simulated. The gameobject
+     * of the active camera is always an activator. Subclasses may use the
+     * activators for other purposes as well, like {@link ChunkedMap} does.
+     *
+     * @param activator The gameobject to register
+     * @see #setActivationRadius(float)
+     */
+    public void addActivator(@NotNull GameObject activator) {
+        activators.add(Arguments.checkNull(activator, "activator"));
+    }
+
+    /**
+     * Unregisters the given gameobject as activator.
+     *
+     * @param activator The gameobject to unregister
+     * @return Whether the gameobject was an activator
+     */
+    public boolean removeActivator(GameObject activator) {
+        return activators.remove(activator);
+    }
+
+    /**
+     * Returns the objects that are simulated this frame.
+     *
+     * @return All objects, including the gaps of objects removed since the start of
+     *         the update, or the active ones if an activation radius is set
+     */
+    private List<GameObject> simulatedObjects() {
+        return activationRadius == Float.POSITIVE_INFINITY ? objects : activeObjects;
+    }
+
+    /**
+     * Suspends all objects that left the activation radius and resumes all objects
+     * that entered it.
+     */
+    private void updateActivation() {
+        if(activationRadius == Float.POSITIVE_INFINITY) return;
+        long stamp = ++activationStamp;
+
+        for(GameObject activator : activators())
+            markInRange(activator, stamp);
+
+        // Swap-remove moves already checked objects into the gap, so iterate backwards
+        for(int i=activeObjects.size()-1; i>=0; i--) {
+            GameObject o = activeObjects.get(i);
+            if(o.activationStamp != stamp) suspend(o);
+        }
+    }
+
+    /**
+     * Returns the gameobject of the active camera, if it is on this map, and all
+     * registered activators on this map. The returned list is reused and refilled
+     * by the next call of this method, so it must not be kept.
+     *
+     * @return The current activators
+     */
+    List<GameObject> activators() {
+        List<GameObject> out = currentActivators;
+        out.clear();
+        GameObject cameraObject = cameraObject();
+        if(cameraObject != null && cameraObject.map == this && !activators.contains(cameraObject))
+            out.add(cameraObject);
+        for(GameObject activator : activators)
+            if(activator.map == this) out.add(activator);
+        return out;
+    }
+
+    /**
+     * Returns whether the given gameobject on this map is the gameobject of the
+     * active camera or a registered activator, without building the list of
+     * activators.
+     *
+     * @param object The gameobject to test
+     * @return Whether the gameobject is an activator
+     */
+    boolean isActivator(GameObject object) {
+        return object == cameraObject() || activators.contains(object);
+    }
+
+    @Nullable
+    private static GameObject cameraObject() {
+        Camera camera = Camera.getActive();
+        return camera != null ? camera.getGameObject() : null;
+    }
 
     /**
-     * Returns a view on the objects on this map.
+     * Marks all objects in range of the given activator as active this frame,
+     * resuming them if necessary.
+     */
+    private void markInRange(GameObject activator, long stamp) {
+        float2 pos = activator.location;
+        float r = activationRadius, sqrR = r * r;
+        activationQuery.clear();
+        indexMovedObjects();
+        spatialIndex.query(pos.x - r, pos.y - r, pos.x + r, pos.y + r, activationQuery);
+        for(GameObject o : activationQuery) {
+            if(float2.sqrDist(o.location, pos) > sqrR) continue;
+            o.activationStamp = stamp;
+            if(o.suspended) resume(o);
+        }
+        activationQuery.clear();
+    }
+
+    /**
+     * Registers the given object as having a physics body.
+     *
+     * @param object The object whose body was created
+     */
+    void bodyCreated(GameObject object) {
+        object.bodySlot = bodyObjects.size();
+        bodyObjects.add(object);
+    }
+
+    /**
+     * Unregisters the given object as having a physics body.
+     *
+     * @param object The object whose body was destroyed
+     */
+    void bodyDestroyed(GameObject object) {
+        int slot = object.bodySlot, lastSlot = bodyObjects.size() - 1;
+        GameObject last = bodyObjects.remove(lastSlot);
+        if(slot != lastSlot) {
+            bodyObjects.set(slot, last);
+            last.bodySlot = slot;
+        }
+        object.bodySlot = -1;
+    }
+
+    /**
+     * Queues a collision enter or exit event for the colliders of the given contact, to
+     * be invoked with the next {@link #flushContactEvents()}. Called by the physics world,
+     * either during the step or when a body gets destroyed.
+     *
+     * @param contact The contact that started or ended
+     * @param begin Whether the contact started
+     */
+    private void queueContactEvent(Contact contact, boolean begin) {
+        if(contactEventCount == contactBegins.length) {
+            contactBegins = Arrays.copyOf(contactBegins, contactEventCount * 2);
+            contactColliders = Arrays.copyOf(contactColliders, contactEventCount * 4);
+        }
+        contactColliders[2 * contactEventCount] = (Collider) contact.m_fixtureA.m_userData;
+        contactColliders[2 * contactEventCount + 1] = (Collider) contact.m_fixtureB.m_userData;
+        contactBegins[contactEventCount++] = begin;
+    }
+
+    /**
+     * Invokes the queued collision events in the order they occurred. Events queued
+     * by the invoked listeners, for example by removing a gameobject, are invoked
+     * as well.
+     */
+    private void flushContactEvents() {
+        for(int i=0; i<contactEventCount; i++) {
+            Collider a = contactColliders[2*i], b = contactColliders[2*i+1];
+            if(contactBegins[i]) {
+                a.onCollisionEnter.invoke(b);
+                b.onCollisionEnter.invoke(a);
+            }
+            else {
+                a.onCollisionExit.invoke(b);
+                b.onCollisionExit.invoke(a);
+            }
+        }
+        Arrays.fill(contactColliders, 0, 2 * contactEventCount, null);
+        contactEventCount = 0;
+    }
+
+    private void activate(GameObject object) {
+        object.activeSlot = activeObjects.size();
+        activeObjects.add(object);
+    }
+
+    private void deactivate(GameObject object) {
+        int slot = object.activeSlot, lastSlot = activeObjects.size() - 1;
+        GameObject last = activeObjects.remove(lastSlot);
+        if(slot != lastSlot) {
+            activeObjects.set(slot, last);
+            last.activeSlot = slot;
+        }
+        object.activeSlot = -1;
+    }
+
+    private void suspend(GameObject object) {
+        deactivate(object);
+        object.suspended = true;
+        if(object.updateSlot >= 0)
+            gameobjectUpdate.remove(object);
+        if(object.lateUpdateSlot >= 0)
+            gameobjectLateUpdate.remove(object);
+        if(object.body != null)
+            object.body.setActive(false);
+    }
+
+    private void resume(GameObject object) {
+        object.suspended = false;
+        activate(object);
+        object.storeTickTransform();
+        if(object.updateUses != 0)
+            gameobjectUpdate.add(object);
+        if(object.lateUpdateUses != 0)
+            gameobjectLateUpdate.add(object);
+        if(object.body != null)
+            object.body.setActive(true);
+    }
+
+
+    /**
+     * Queues all the given objects to be added to this map. The objects are added
+     * at the start of the next update of this map, or when calling
+     * {@link #applyStructuralChanges()}, all at once. Objects on a different map
+     * will be removed from that map then. Adding many objects this way is
+     * considerably faster than calling {@link GameObject#setMap(Map)} for each
+     * of them.
+     *
+     * <p>If the same object is queued multiple times, only the last change is
+     * applied. Calling {@link GameObject#setMap(Map)} discards any queued change
+     * of that object.</p>
+     *
+     * @param objects The objects to add
+     */
+    public void addAll(@NotNull Collection<? extends GameObject> objects) {
+        for(GameObject o : Arguments.checkNull(objects, "objects"))
+            queueStructuralChange(Arguments.checkNull(o, "object"), true);
+    }
+
+    /**
+     * Queues all the given objects to be removed from this map. The objects are
+     * removed at the start of the next update of this map, or when calling
+     * {@link #applyStructuralChanges()}, all at once. Objects that are not on this
+     * map at that point are ignored.
+     *
+     * <p>If the same object is queued multiple times, only the last change is
+     * applied. Calling {@link GameObject#setMap(Map)} discards any queued change
+     * of that object.</p>
+     *
+     * @param objects The objects to remove
+     */
+    public void removeAll(@NotNull Collection<? extends GameObject> objects) {
+        // Copy first, the collection may be a view of this map's objects
+        for(GameObject o : new ArrayList<>(Arguments.checkNull(objects, "objects")))
+            queueStructuralChange(Arguments.checkNull(o, "object"), false);
+    }
+
+    /**
+     * Applies all changes queued using {@link #addAll(Collection)} and
+     * {@link #removeAll(Collection)}. This happens automatically at the start of
+     * each update of this map. The bookkeeping of all objects is done first, then
+     * the physics bodies of all added objects are created, and finally the
+     * {@link GameObject#onMapChange} events are fired.
+     */
+    public void applyStructuralChanges() {
+        if(pendingChanges.isEmpty()) return;
+
+        int count = pendingChanges.size();
+        List<GameObject> changed = new ArrayList<>(count);
+        List<Map> previousMaps = new ArrayList<>(count);
+        List<GameObject> added = new ArrayList<>(count);
+
+        for(java.util.Map.Entry<GameObject, Boolean> change : pendingChanges.entrySet()) {
+            GameObject o = change.getKey();
+            o.pendingMap = null;
+            Map old = o.map;
+            if(change.getValue()) {
+                if(old == this) continue;
+                if(old != null) {
+                    o.destroyBody();
+                    old.detach(o);
+                }
+                o.map = this;
+                attach(o);
+                added.add(o);
+            }
+            else {
+                if(old != this) continue;
+                o.destroyBody();
+                detach(o);
+                o.map = null;
+            }
+            changed.add(o);
+            previousMaps.add(old);
+        }
+        // Events may queue new changes
+        pendingChanges.clear();
+
+        for(GameObject o : added) o.createBody();
+
+        for(int i=0; i<changed.size(); i++) {
+            Map old = previousMaps.get(i);
+            changed.get(i).onMapChange.invoke(old == this ? null : this, old);
+        }
+    }
+
+    /**
+     * Queues the given structural change, replacing any change of that object
+     * queued before, also on other maps.
+     *
+     * @param object The object to change
+     * @param add Whether to add or to remove the object
+     */
+    private void queueStructuralChange(GameObject object, boolean add) {
+        if(object.pendingMap != null && object.pendingMap != this)
+            object.pendingMap.cancelStructuralChange(object);
+        object.pendingMap = this;
+        pendingChanges.remove(object); // Re-insert to keep the order of the calls
+        pendingChanges.put(object, add);
+    }
+
+    /**
+     * Discards the queued structural change of the given object.
+     *
+     * @param object An object with a change queued on this map
+     */
+    void cancelStructuralChange(GameObject object) {
+        pendingChanges.remove(object);
+        object.pendingMap = null;
+    }
+
+    /**
+     * Adds the given object, whose map has already been set to this map, to all
+     * data structures of this map except the physics world.
+     *
+     * @param object The object to add
+     */
+    void attach(GameObject object) {
+        object.storeTickTransform();
+        object.mapSlot = objects.size();
+        objects.add(object);
+        object.setPaintOrder(nextPaintOrder++);
+        maxImageRadius = Math.max(maxImageRadius, object.imageRadius);
+        object.spatialDirty = false;
+        spatialIndex.insert(object);
+        index(object);
+        object.input.setConnected(true);
+        if(activationRadius != Float.POSITIVE_INFINITY)
+            activate(object);
+        if(object.updateUses != 0)
+            gameobjectUpdate.add(object);
+        if(object.lateUpdateUses != 0)
+            gameobjectLateUpdate.add(object);
+    }
+
+    /**
+     * Removes the given object from all data structures of this map except the
+     * physics world. The object's map is not changed.
+     *
+     * @param object The object to remove
+     */
+    void detach(GameObject object) {
+        objects.set(object.mapSlot, null);
+        objectGaps++;
+        object.mapSlot = -1;
+        spatialIndex.remove(object);
+        unindex(object);
+        object.input.setConnected(false);
+        if(object.activeSlot >= 0)
+            deactivate(object);
+        object.suspended = false;
+        if(object.updateSlot >= 0)
+            gameobjectUpdate.remove(object);
+        if(object.lateUpdateSlot >= 0)
+            gameobjectLateUpdate.remove(object);
+    }
+
+
+    /**
+     * Closes the gaps left in {@link #objects} by removed objects, keeping the order
+     * of the remaining objects. Must not be called while iterating the objects.
+     */
+    private void closeObjectGaps() {
+        if(objectGaps == 0) return;
+        int size = 0;
+        for(int i=0; i<objects.size(); i++) {
+            GameObject o = objects.get(i);
+            if(o == null) continue;
+            o.mapSlot = size;
+            objects.set(size++, o);
+        }
+        for(int i=objects.size()-1; i>=size; i--)
+            objects.remove(i);
+        objectGaps = 0;
+    }
+
+    /**
+     * Returns the index of the first object in {@link #objects} at or after the given
+     * index.
+     */
+    private int skipGaps(int index) {
+        while(index < objects.size() && objects.get(index) == null) index++;
+        return index;
+    }
+
+    /**
+     * Returns a view on the objects on this map, in the order they were added.
+     * Objects may be added to or removed from the map while iterating the view;
+     * removed objects that have not been reached yet will not be returned, added
+     * objects will be returned at the end.
      *
      * @return The objects on this map
      */
@@ -203,7 +894,7 @@ public class Map {
      * @return The number of objects
      */
     public int getObjectCount() {
-        return objects.size();
+        return objects.size() - objectGaps;
     }
 
 
@@ -214,7 +905,7 @@ public class Map {
      * @return The objects on this map
      */
     public ListStream<GameObject> objects() {
-        return ListStream.of(objects);
+        return ListStream.of(objects).filter(Objects::nonNull);
     }
 
     /**
@@ -224,7 +915,89 @@ public class Map {
      * @return A stream over those objects
      */
     public <T> ListStream<T> objects(Class<T> type) {
-        return objects().filterType(type);
+        List<Set<GameObject>> buckets = objectsByType.get(type);
+        if(buckets == null) {
+            buckets = new ArrayList<>();
+            for(java.util.Map.Entry<Class<?>, Set<GameObject>> entry : objectsByClass.entrySet())
+                if(type.isAssignableFrom(entry.getKey())) buckets.add(entry.getValue());
+            objectsByType.put(type, buckets);
+        }
+        List<T> objects = new ArrayList<>();
+        for(Set<GameObject> bucket : buckets)
+            for(GameObject o : bucket) objects.add(type.cast(o));
+        return ListStream.of(objects);
+    }
+
+    /**
+     * Returns a stream over the objects with the specified tag on this map.
+     *
+     * @param tag The tag to search for
+     * @return A stream over those objects
+     */
+    public ListStream<GameObject> objectsWithTag(String tag) {
+        Set<GameObject> tagged = objectsByTag.get(tag);
+        return ListStream.of(tagged != null ? new ArrayList<>(tagged) : new ArrayList<>());
+    }
+
+    /**
+     * Returns a stream over the objects with the specified tag and of the specified
+     * type on this map.
+     *
+     * @param tag The tag to search for
+     * @param type The type of objects to find
+     * @return A stream over those objects
+     */
+    public <T> ListStream<T> objectsWithTag(String tag, Class<T> type) {
+        return objectsWithTag(tag).filterType(type);
+    }
+
+    /**
+     * Adds the given object to the type and tag indices.
+     *
+     * @param object The object added to this map
+     */
+    void index(GameObject object) {
+        Set<GameObject> bucket = objectsByClass.get(object.getClass());
+        if(bucket == null) {
+            bucket = new LinkedHashSet<>();
+            objectsByClass.put(object.getClass(), bucket);
+            for(java.util.Map.Entry<Class<?>, List<Set<GameObject>>> entry : objectsByType.entrySet())
+                if(entry.getKey().isAssignableFrom(object.getClass())) entry.getValue().add(bucket);
+        }
+        bucket.add(object);
+        for(String tag : object.tags) tagAdded(object, tag);
+    }
+
+    /**
+     * Removes the given object from the type and tag indices.
+     *
+     * @param object The object removed from this map
+     */
+    void unindex(GameObject object) {
+        objectsByClass.get(object.getClass()).remove(object);
+        for(String tag : object.tags) tagRemoved(object, tag);
+    }
+
+    /**
+     * Adds the given object to the index of the given tag.
+     *
+     * @param object An object on this map
+     * @param tag The tag added to the object
+     */
+    void tagAdded(GameObject object, String tag) {
+        objectsByTag.computeIfAbsent(tag, $ -> new LinkedHashSet<>()).add(object);
+    }
+
+    /**
+     * Removes the given object from the index of the given tag.
+     *
+     * @param object An object on this map
+     * @param tag The tag removed from the object
+     */
+    void tagRemoved(GameObject object, String tag) {
+        Set<GameObject> tagged = objectsByTag.get(tag);
+        tagged.remove(object);
+        if(tagged.isEmpty()) objectsByTag.remove(tag);
     }
 
     /**
@@ -235,7 +1008,7 @@ public class Map {
      * @return A stream over those objects
      */
     public <T> ListStream<T> objects(float2 pos, Class<T> type) {
-        return objects().filter(o -> o.location.equals(pos)).filterType(type);
+        return objectsInRect(pos, 0).filter(o -> o.location.equals(pos)).filterType(type);
     }
 
     /**
@@ -248,7 +1021,23 @@ public class Map {
      */
     public <T> ListStream<T> objects(float2 pos, float maxDist, Class<T> type) {
         float maxSqrDist = maxDist * maxDist;
-        return objects().filter(o -> float2.sqrDist(o.location, pos) <= maxSqrDist).filterType(type);
+        return objectsInRect(pos, maxDist).filter(o -> float2.sqrDist(o.location, pos) <= maxSqrDist).filterType(type);
+    }
+
+    /**
+     * Returns a stream over the objects whose location is within the given
+     * maximum distance on both axes from the specified location, using the
+     * spatial index.
+     *
+     * @param pos The center of the square to find objects in
+     * @param maxDist Half the side length of the square (inclusive)
+     * @return A stream over those objects
+     */
+    ListStream<GameObject> objectsInRect(float2 pos, float maxDist) {
+        List<GameObject> objects = new ArrayList<>();
+        indexMovedObjects();
+        spatialIndex.query(pos.x - maxDist, pos.y - maxDist, pos.x + maxDist, pos.y + maxDist, objects);
+        return ListStream.of(objects);
     }
 
 
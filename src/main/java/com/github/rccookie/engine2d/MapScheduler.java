@@ -0,0 +1,260 @@
+package com.github.rccookie.engine2d;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.github.rccookie.engine2d.core.stats.MapStats;
+import com.github.rccookie.event.action.IAction;
+import com.github.rccookie.util.Arguments;
+import com.github.rccookie.util.Console;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Steps a set of maps each update, in parallel on a worker pool. Usually, only the map
+ * that the active camera renders gets updated. A map scheduler can be used to keep
+ * other maps running as well, for example the different rooms or instances hosted on
+ * a server.
+ *
+ * <p>Each map is self-contained with its own objects and physics world, so different
+ * maps can be updated concurrently. However, the objects on the maps must not access
+ * objects on other maps that are stepped by the same scheduler during their update.
+ * The map of the active camera will never be stepped by the scheduler because it
+ * already gets updated by the camera.</p>
+ *
+ * <p>A scheduler that created its own pool should be {@link #close() closed} once it
+ * is no longer needed, to stop the pool's worker threads.</p>
+ */
+public class MapScheduler implements AutoCloseable {
+
+    /**
+     * The maps to step.
+     */
+    private final List<Map> maps = new ArrayList<>();
+
+    /**
+     * View of {@link #maps}.
+     */
+    private final List<Map> mapsView = Collections.unmodifiableList(maps);
+
+    /**
+     * The pool the maps get stepped on.
+     */
+    private final ExecutorService pool;
+
+    /**
+     * Whether {@link #pool} was created by this scheduler and thus gets shut down by
+     * {@link #close()}.
+     */
+    private final boolean ownsPool;
+
+    /**
+     * Stats of the last step of each map, in the same order as {@link #maps}.
+     */
+    private final List<MapStats> stats = new ArrayList<>();
+
+    /**
+     * The last submitted step of each map, used to not step a map again while a step
+     * abandoned by an interrupted {@link #step()} is still running.
+     */
+    private final java.util.Map<Map, Future<MapStats>> running = new HashMap<>();
+
+    /**
+     * The action attached to {@link Application#lateUpdate}, or {@code null} if the
+     * scheduler is not running.
+     */
+    private IAction stepAction = null;
+
+
+    /**
+     * Creates a new map scheduler running on the common fork-join pool.
+     */
+    public MapScheduler() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new map scheduler running on a new pool with the given number of
+     * worker threads. The pool gets shut down when the scheduler gets
+     * {@link #close() closed}.
+     *
+     * @param threads The number of worker threads
+     */
+    public MapScheduler(int threads) {
+        this(new ForkJoinPool(threads), true);
+    }
+
+    /**
+     * Creates a new map scheduler running on the given pool. The pool will not be
+     * shut down by the scheduler.
+     *
+     * @param pool The pool to step the maps on
+     */
+    public MapScheduler(@NotNull ExecutorService pool) {
+        this(pool, false);
+    }
+
+    private MapScheduler(@NotNull ExecutorService pool, boolean ownsPool) {
+        Application.checkSetup();
+        this.pool = Arguments.checkNull(pool, "pool");
+        this.ownsPool = ownsPool;
+    }
+
+
+    /**
+     * Adds the given map to be stepped by this scheduler.
+     *
+     * @param map The map to add
+     * @return Whether the map was not already added
+     */
+    public synchronized boolean add(@NotNull Map map) {
+        Arguments.checkNull(map, "map");
+        if(maps.contains(map)) return false;
+        maps.add(map);
+        stats.add(null);
+        return true;
+    }
+
+    /**
+     * Removes the given map from this scheduler.
+     *
+     * @param map The map to remove
+     * @return Whether the map was stepped by this scheduler
+     */
+    public synchronized boolean remove(Map map) {
+        int index = maps.indexOf(map);
+        if(index == -1) return false;
+        maps.remove(index);
+        stats.remove(index);
+        return true;
+    }
+
+    /**
+     * Returns a view of the maps stepped by this scheduler.
+     *
+     * @return The scheduler's maps
+     */
+    public Collection<Map> getMaps() {
+        return mapsView;
+    }
+
+    /**
+     * Steps all maps of this scheduler once, in parallel, and waits for all of them
+     * to finish. The map of the active camera will be skipped. If the calling thread
+     * gets interrupted while waiting, this method returns early with the interrupt
+     * flag set. Maps that are still being stepped then will be skipped by following
+     * steps until they have finished.
+     */
+    public synchronized void step() {
+        Map activeMap = Camera.getActive().getMap();
+
+        List<Future<MapStats>> results = new ArrayList<>(maps.size());
+        for(Map map : maps) {
+            Future<MapStats> previous = running.get(map);
+            if(map == activeMap || (previous != null && !previous.isDone())) {
+                results.add(null);
+                continue;
+            }
+            Future<MapStats> result = pool.submit(() -> stepMap(map));
+            running.put(map, result);
+            results.add(result);
+        }
+
+        for(int i=0; i<results.size(); i++) {
+            if(results.get(i) == null) continue;
+            try {
+                stats.set(i, results.get(i).get());
+            } catch(InterruptedException e) {
+                // Don't start maps that are still queued, running ones finish on their own
+                for(int j=i; j<results.size(); j++)
+                    if(results.get(j) != null) results.get(j).cancel(false);
+                Thread.currentThread().interrupt();
+                return;
+            } catch(ExecutionException e) {
+                Console.error("Exception updating map:");
+                Console.error(e.getCause());
+            } catch(CancellationException e) {
+                // Cancelled by an interrupted earlier step
+            }
+        }
+        running.clear();
+    }
+
+    /**
+     * Steps a single map and returns its stats.
+     *
+     * @param map The map to step
+     * @return The map's stats
+     */
+    private static MapStats stepMap(Map map) {
+        long start = System.nanoTime();
+        map.update();
+        long duration = System.nanoTime() - start;
+        return new MapStats(
+                duration / 1000000000f,
+                map.updateDuration / 1000000000f,
+                map.physicsDuration / 1000000000f,
+                map.getObjectCount()
+        );
+    }
+
+    /**
+     * Returns the stats of the last step of the given map. If the map has not been
+     * stepped yet or is not stepped by this scheduler, {@code null} will be returned.
+     *
+     * @param map The map to get the stats of
+     * @return The map's last stats
+     */
+    @Nullable
+    public synchronized MapStats getStats(Map map) {
+        int index = maps.indexOf(map);
+        return index == -1 ? null : stats.get(index);
+    }
+
+    /**
+     * Starts stepping the maps automatically once per update, after the active
+     * camera has been updated.
+     */
+    public synchronized void start() {
+        if(stepAction == null)
+            stepAction = Application.lateUpdate.add(this::step);
+    }
+
+    /**
+     * Stops stepping the maps automatically.
+     */
+    public synchronized void stop() {
+        if(stepAction == null) return;
+        Application.lateUpdate.remove(stepAction);
+        stepAction = null;
+    }
+
+    /**
+     * Returns whether this scheduler steps its maps automatically.
+     *
+     * @return Whether the scheduler is running
+     */
+    public synchronized boolean isRunning() {
+        return stepAction != null;
+    }
+
+    /**
+     * Stops stepping the maps automatically and, if this scheduler created its own
+     * pool, shuts that pool down. Maps still being stepped finish their step. The
+     * scheduler cannot step maps afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        stop();
+        if(ownsPool) pool.shutdown();
+    }
+}
@@ -0,0 +1,443 @@
+package com.github.rccookie.engine2d;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.github.rccookie.engine2d.image.Image;
+import com.github.rccookie.geometry.performance.float2;
+import com.github.rccookie.util.Arguments;
+
+import org.jbox2d.dynamics.BodyType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A compact binary copy of the state of a map and its gameobjects, which can be
+ * restored into a map later. Snapshots can be used for quick-saves, to roll back
+ * a simulation or to transfer a map to a different process.
+ *
+ * <p>A snapshot contains the gravity and sleep settings of the map and, for each
+ * gameobject, its type, transform, velocity and rotation, image, render layer,
+ * z-index and paint order, tags, physics settings and body sleep state. Additional
+ * state of gameobjects and components is captured using the
+ * {@link GameObject#writeSnapshot(ByteBuffer)} and
+ * {@link Component#writeSnapshot(ByteBuffer)} hooks. Types and images are identified
+ * by the keys registered in a {@link SnapshotRegistry}. Dense entities, event
+ * listeners and gameobjects that are not {@link SnapshotRegistry#isCaptured(GameObject)
+ * captured} by the registry, like the gameobject of the active camera, are not part
+ * of a snapshot.</p>
+ */
+public final class MapSnapshot {
+
+    /**
+     * Identifies snapshot data, "MAPS" in ASCII.
+     */
+    private static final int MAGIC = 0x4D415053;
+
+    /**
+     * Version of the binary format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes: magic, version, length, object count, string table
+     * offset, gravity, allow sleep and next paint order.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 4 + 8 + 1 + 8;
+
+    private static final int FLAG_PHYSICS = 1, FLAG_FIXED_ROTATION = 2, FLAG_BODY = 4, FLAG_AWAKE = 8;
+
+    /**
+     * Key index written for gameobjects without an image.
+     */
+    private static final int NO_IMAGE = -1;
+
+    /**
+     * Key index written for gameobjects with an unregistered image.
+     */
+    private static final int UNKNOWN_IMAGE = -2;
+
+
+    /**
+     * The registry used to capture the snapshot and to restore it.
+     */
+    private final SnapshotRegistry registry;
+
+    /**
+     * The snapshot data, from position 0 to the limit.
+     */
+    private final ByteBuffer data;
+
+
+    private MapSnapshot(SnapshotRegistry registry, ByteBuffer data) {
+        this.registry = registry;
+        this.data = data;
+    }
+
+
+    /**
+     * Captures the current state of the given map. Structural changes queued on the
+     * map are not included.
+     *
+     * @param map The map to capture
+     * @param registry The registry containing the types of all captured gameobjects
+     *                 on the map
+     * @return A snapshot of the map
+     * @throws IllegalStateException If the type of a captured gameobject is not registered
+     */
+    @NotNull
+    public static MapSnapshot capture(@NotNull Map map, @NotNull SnapshotRegistry registry) {
+        Arguments.checkNull(map, "map");
+        Arguments.checkNull(registry, "registry");
+        return new MapSnapshot(registry, new Writer(registry, map.getObjectCount()).write(map));
+    }
+
+    /**
+     * Replaces all gameobjects on the given map with gameobjects created from this
+     * snapshot, and restores the map's settings. Gameobjects that are not captured
+     * by the registry, like the gameobject of the active camera, stay on the map.
+     * All queued structural changes of the map get applied before.
+     *
+     * @param map The map to restore into
+     * @throws IllegalStateException If a type of the snapshot is not registered
+     */
+    public void restore(@NotNull Map map) {
+        Arguments.checkNull(map, "map");
+        ByteBuffer in = data.duplicate();
+        in.position(4 + 4 + 4);
+        int count = in.getInt();
+        int tableOffset = in.getInt();
+        float2 gravity = new float2(in.getFloat(), in.getFloat());
+        boolean allowSleep = in.get() != 0;
+        long nextPaintOrder = in.getLong();
+        String[] strings = readStrings(in, tableOffset);
+
+        map.applyStructuralChanges();
+        List<GameObject> removed = new ArrayList<>();
+        for(GameObject o : map.getObjects())
+            if(registry.isCaptured(o)) removed.add(o);
+        map.removeAll(removed);
+        map.applyStructuralChanges();
+        map.setGravity(gravity);
+        map.setAllowPhysicsSleep(allowSleep);
+
+        List<GameObject> objects = new ArrayList<>(count);
+        long[] paintOrders = new long[count];
+        byte[] flags = new byte[count];
+        float[] sleepTimes = new float[count];
+        for(int i=0; i<count; i++) {
+            GameObject o = registry.create(strings[in.getInt()]);
+            o.location.set(in.getFloat(), in.getFloat());
+            o.angle = in.getFloat();
+            o.velocity.set(in.getFloat(), in.getFloat());
+            o.rotation = in.getFloat();
+            o.storeTickTransform();
+
+            int image = in.getInt();
+            if(image == NO_IMAGE) o.setImage(null);
+            else if(image != UNKNOWN_IMAGE) {
+                Image registered = registry.image(strings[image]);
+                if(registered == null)
+                    throw new IllegalStateException("No image registered with the key '" + strings[image] + "'");
+                o.setImage(registered);
+            }
+            o.setRenderLayer(in.getInt());
+            o.setZIndex(in.getInt());
+            paintOrders[i] = in.getLong();
+
+            o.tags.clear();
+            for(int j=in.getShort(); j>0; j--)
+                o.tags.add(strings[in.getInt()]);
+
+            flags[i] = in.get();
+            o.usePhysics((flags[i] & FLAG_PHYSICS) != 0);
+            o.setFixedRotation((flags[i] & FLAG_FIXED_ROTATION) != 0);
+            o.setBackgroundFriction(in.getFloat());
+            sleepTimes[i] = in.getFloat();
+
+            o.readSnapshot(readBlock(in));
+            int componentCount = in.getInt(), j = 0;
+            for(Component c : o.components) {
+                if(j++ == componentCount) break;
+                c.readSnapshot(readBlock(in));
+            }
+            // Skip the state of components the new gameobject does not have
+            for(; j<componentCount; j++) readBlock(in);
+
+            objects.add(o);
+        }
+
+        map.addAll(objects);
+        map.applyStructuralChanges();
+
+        for(int i=0; i<count; i++) {
+            GameObject o = objects.get(i);
+            o.setPaintOrder(paintOrders[i]);
+            if(o.body != null && (flags[i] & FLAG_BODY) != 0) {
+                o.body.setAwake((flags[i] & FLAG_AWAKE) != 0);
+                o.body.m_sleepTime = sleepTimes[i];
+            }
+        }
+        map.nextPaintOrder = nextPaintOrder;
+    }
+
+    /**
+     * Returns the size of the snapshot data in bytes.
+     *
+     * @return The snapshot size
+     */
+    public int size() {
+        return data.limit();
+    }
+
+    /**
+     * Writes the snapshot data to the given channel.
+     *
+     * @param channel The channel to write to
+     * @throws IOException If an I/O exception occurs
+     */
+    public void write(@NotNull WritableByteChannel channel) throws IOException {
+        Arguments.checkNull(channel, "channel");
+        ByteBuffer out = data.duplicate();
+        while(out.hasRemaining()) channel.write(out);
+    }
+
+    /**
+     * Writes the snapshot data to the given file, replacing its content.
+     *
+     * @param file The file to write to
+     * @throws IOException If an I/O exception occurs
+     */
+    public void save(@NotNull Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel);
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write(WritableByteChannel)} from the given
+     * channel.
+     *
+     * @param channel The channel to read from
+     * @param registry The registry to restore the snapshot with
+     * @return The read snapshot
+     * @throws IOException If an I/O exception occurs or the data is not a snapshot
+     */
+    @NotNull
+    public static MapSnapshot read(@NotNull ReadableByteChannel channel, @NotNull SnapshotRegistry registry) throws IOException {
+        Arguments.checkNull(channel, "channel");
+        Arguments.checkNull(registry, "registry");
+        ByteBuffer header = ByteBuffer.allocate(12);
+        readFully(channel, header);
+        if(header.getInt(0) != MAGIC)
+            throw new IOException("Not a map snapshot");
+        if(header.getInt(4) != VERSION)
+            throw new IOException("Unsupported snapshot version " + header.getInt(4));
+        int length = header.getInt(8);
+        if(length < HEADER_SIZE)
+            throw new IOException("Corrupt snapshot");
+
+        ByteBuffer data = ByteBuffer.allocate(length);
+        header.flip();
+        data.put(header);
+        readFully(channel, data);
+        data.flip();
+        return new MapSnapshot(registry, data);
+    }
+
+    /**
+     * Reads a snapshot from the given file.
+     *
+     * @param file The file to read from
+     * @param registry The registry to restore the snapshot with
+     * @return The read snapshot
+     * @throws IOException If an I/O exception occurs or the file is not a snapshot
+     */
+    @NotNull
+    public static MapSnapshot load(@NotNull Path file, @NotNull SnapshotRegistry registry) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, registry);
+        }
+    }
+
+
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining())
+            if(channel.read(buffer) < 0) throw new EOFException("Snapshot data ended unexpectedly");
+    }
+
+    /**
+     * Returns a buffer containing the next length-prefixed block, and advances the
+     * given buffer behind it.
+     */
+    private static ByteBuffer readBlock(ByteBuffer in) {
+        int length = in.getInt();
+        ByteBuffer block = in.slice();
+        block.limit(length);
+        in.position(in.position() + length);
+        return block;
+    }
+
+    private static String[] readStrings(ByteBuffer data, int offset) {
+        ByteBuffer in = data.duplicate();
+        in.position(offset);
+        String[] strings = new String[in.getInt()];
+        for(int i=0; i<strings.length; i++) {
+            byte[] bytes = new byte[in.getShort() & 0xFFFF];
+            in.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+
+
+    /**
+     * Writes the snapshot data into a growing buffer.
+     */
+    private static final class Writer {
+
+        /**
+         * Estimated size of a gameobject without custom state, in bytes.
+         */
+        private static final int OBJECT_SIZE = 64;
+
+        private final SnapshotRegistry registry;
+        private ByteBuffer out;
+
+        /**
+         * Strings written to the string table, with their indices.
+         */
+        private final java.util.Map<String, Integer> stringIndices = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        Writer(SnapshotRegistry registry, int objectCount) {
+            this.registry = registry;
+            out = ByteBuffer.allocate(HEADER_SIZE + objectCount * OBJECT_SIZE + 256);
+        }
+
+        ByteBuffer write(Map map) {
+            out.position(HEADER_SIZE);
+            int count = 0;
+            for(GameObject o : map.getObjects()) {
+                if(!registry.isCaptured(o)) continue;
+                writeObject(o);
+                count++;
+            }
+
+            int tableOffset = out.position();
+            ensure(4);
+            out.putInt(strings.size());
+            for(String s : strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                if(bytes.length > 0xFFFF)
+                    throw new IllegalStateException("Key or tag too long: " + s);
+                ensure(2 + bytes.length);
+                out.putShort((short) bytes.length);
+                out.put(bytes);
+            }
+
+            float2 gravity = map.getGravity();
+            out.putInt(0, MAGIC)
+               .putInt(4, VERSION)
+               .putInt(8, out.position())
+               .putInt(12, count)
+               .putInt(16, tableOffset)
+               .putFloat(20, gravity.x)
+               .putFloat(24, gravity.y)
+               .put(28, (byte) (map.isAllowPhysicsSleep() ? 1 : 0))
+               .putLong(29, map.nextPaintOrder);
+            out.flip();
+            return out.asReadOnlyBuffer();
+        }
+
+        private void writeObject(GameObject o) {
+            ensure(OBJECT_SIZE);
+            out.putInt(string(registry.typeKey(o)));
+            out.putFloat(o.location.x).putFloat(o.location.y).putFloat(o.angle);
+            out.putFloat(o.velocity.x).putFloat(o.velocity.y).putFloat(o.rotation);
+
+            Image image = o.getImage();
+            if(image == null) out.putInt(NO_IMAGE);
+            else {
+                String key = registry.imageKey(image);
+                out.putInt(key != null ? string(key) : UNKNOWN_IMAGE);
+            }
+            out.putInt(o.getRenderLayer()).putInt(o.getZIndex()).putLong(o.paintOrder);
+
+            ensure(2 + 4 * o.tags.size());
+            out.putShort((short) o.tags.size());
+            for(String tag : o.tags) out.putInt(string(tag));
+
+            ensure(1 + 4 + 4);
+            int flags = 0;
+            if(o.bodyData.type == BodyType.DYNAMIC) flags |= FLAG_PHYSICS;
+            if(o.bodyData.fixedRotation) flags |= FLAG_FIXED_ROTATION;
+            if(o.body != null) {
+                flags |= FLAG_BODY;
+                if(o.body.isAwake()) flags |= FLAG_AWAKE;
+            }
+            out.put((byte) flags);
+            out.putFloat(o.bodyData.linearDamping);
+            out.putFloat(o.body != null ? o.body.m_sleepTime : 0);
+
+            writeBlock(o::writeSnapshot);
+            ensure(4);
+            out.putInt(o.components.size());
+            for(Component c : o.components) writeBlock(c::writeSnapshot);
+        }
+
+        /**
+         * Writes the output of the given hook, prefixed with its length. If the hook
+         * overflows the buffer, the buffer grows and the hook is invoked again.
+         */
+        private void writeBlock(Consumer<ByteBuffer> hook) {
+            ensure(4);
+            int start = out.position();
+            while(true) {
+                try {
+                    out.putInt(0);
+                    hook.accept(out);
+                    out.putInt(start, out.position() - start - 4);
+                    return;
+                } catch(BufferOverflowException e) {
+                    out.position(start);
+                    grow(out.capacity());
+                }
+            }
+        }
+
+        private int string(String s) {
+            Integer index = stringIndices.get(s);
+            if(index == null) {
+                index = strings.size();
+                strings.add(s);
+                stringIndices.put(s, index);
+            }
+            return index;
+        }
+
+        private void ensure(int bytes) {
+            if(out.remaining() < bytes) grow(bytes);
+        }
+
+        private void grow(int bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.capacity() + bytes));
+            out.flip();
+            grown.put(out);
+            out = grown;
+        }
+    }
+}
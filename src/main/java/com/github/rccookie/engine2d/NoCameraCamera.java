@@ -1,6 +1,7 @@
 package com.github.rccookie.engine2d;
 
 import com.github.rccookie.engine2d.core.DrawObject;
+import com.github.rccookie.engine2d.core.FrameSnapshot;
 import com.github.rccookie.engine2d.image.Color;
 import com.github.rccookie.engine2d.image.Font;
 import com.github.rccookie.engine2d.image.Image;
@@ -40,6 +41,17 @@ final class NoCameraCamera extends Camera {
         return 0;
     }
 
+    @Override
+    public long prepareRender(FrameSnapshot snapshot) {
+        snapshot.camera = this;
+        return 0;
+    }
+
+    @Override
+    public long render(FrameSnapshot snapshot) {
+        return render();
+    }
+
     @Override
     public long render() {
         long start = System.nanoTime();
@@ -0,0 +1,141 @@
+package com.github.rccookie.engine2d;
+
+import java.util.function.Supplier;
+
+import com.github.rccookie.engine2d.util.Pool;
+import com.github.rccookie.geometry.performance.float2;
+import com.github.rccookie.util.ArgumentOutOfRangeException;
+import com.github.rccookie.util.Arguments;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A prefab creates gameobjects of a certain kind and reuses them once they are
+ * no longer needed. Creating a gameobject is relatively expensive, so for objects
+ * that are created and discarded frequently, like projectiles, spawning them from
+ * a prefab and {@link GameObject#recycle() recycling} them afterwards avoids most
+ * of that cost.
+ *
+ * <p>When a gameobject gets recycled, it is removed from its map, its location,
+ * angle, velocity and rotation are set to 0 and all coroutines and delayed
+ * executions started using {@link GameObject#execute}, also by its components,
+ * are cancelled. Everything else, like the image,
+ * components, tags, event listeners and physics settings, is considered part of
+ * the prefab and kept as is. Any other state changed after the creation has to be
+ * restored by overriding {@link GameObject#onReset()} and {@link Component#onReset()}.</p>
+ *
+ * @param <T> The type of gameobjects created
+ */
+public class Prefab<T extends GameObject> {
+
+    /**
+     * The recycled gameobjects ready to be spawned again.
+     */
+    private final Pool<T> pool;
+
+
+    /**
+     * Creates a new prefab.
+     *
+     * @param factory Creates a new gameobject whenever no recycled one is
+     *                available. The gameobject must not be on a map.
+     */
+    public Prefab(@NotNull Supplier<? extends T> factory) {
+        this(factory, 0);
+    }
+
+    /**
+     * Creates a new prefab and creates the given number of gameobjects in
+     * advance.
+     *
+     * @param factory Creates a new gameobject whenever no recycled one is
+     *                available. The gameobject must not be on a map.
+     * @param initialCapacity The number of gameobjects to create in advance
+     */
+    public Prefab(@NotNull Supplier<? extends T> factory, int initialCapacity) {
+        Arguments.checkNull(factory, "factory");
+        if(initialCapacity < 0)
+            throw new ArgumentOutOfRangeException("Negative capacity");
+        pool = new Pool<>(() -> create(factory), initialCapacity);
+    }
+
+
+    /**
+     * Returns a gameobject of this prefab which is not on any map. This is a
+     * recycled gameobject if one is available, otherwise a new one.
+     *
+     * @return A gameobject of this prefab
+     */
+    @NotNull
+    public T spawn() {
+        T object = pool.get();
+        object.pooled = false;
+        return object;
+    }
+
+    /**
+     * Returns a gameobject of this prefab, placed at the given location on the
+     * given map.
+     *
+     * @param map The map to place the gameobject on
+     * @param location The location to place the gameobject at
+     * @return A gameobject of this prefab
+     */
+    @NotNull
+    public T spawn(@NotNull Map map, @NotNull float2 location) {
+        Arguments.checkNull(map, "map");
+        T object = spawn();
+        object.location.set(Arguments.checkNull(location, "location"));
+        object.storeTickTransform();
+        object.setMap(map);
+        return object;
+    }
+
+    /**
+     * Removes the given gameobject from its map, resets it and keeps it to be
+     * reused by a later spawn. This is equivalent to {@link GameObject#recycle()}.
+     * Recycling a gameobject that is already recycled has no effect.
+     *
+     * @param object The gameobject to recycle, created by this prefab
+     */
+    public void recycle(@NotNull T object) {
+        Arguments.checkNull(object, "object");
+        if(object.prefab != this)
+            throw new IllegalArgumentException("The gameobject was not created by this prefab");
+        recycleObject(object);
+    }
+
+    /**
+     * Returns the number of recycled gameobjects ready to be spawned.
+     *
+     * @return The number of pooled gameobjects
+     */
+    public int size() {
+        return pool.size();
+    }
+
+    /**
+     * Recycles the given gameobject, which must have been created by this prefab.
+     *
+     * @param object The gameobject to recycle
+     */
+    @SuppressWarnings("unchecked")
+    void recycleObject(GameObject object) {
+        if(object.pooled) return;
+        object.setMap(null);
+        object.reset();
+        object.pooled = true;
+        pool.returnObject((T) object);
+    }
+
+    private T create(Supplier<? extends T> factory) {
+        T object = Arguments.checkNull(factory.get(), "factory.get()");
+        if(object.prefab != null)
+            throw new IllegalStateException("The gameobject already belongs to a prefab");
+        if(object.map != null)
+            throw new IllegalStateException("The gameobject created by a prefab must not be on a map");
+        object.prefab = this;
+        object.pooled = true;
+        return object;
+    }
+}
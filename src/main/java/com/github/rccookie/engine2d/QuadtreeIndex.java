@@ -0,0 +1,214 @@
+package com.github.rccookie.engine2d;
+
+import java.util.List;
+
+/**
+ * Spatial index that sorts the gameobjects into a quadtree. Leaves are split once
+ * they hold too many objects and merged again once their parent holds few enough.
+ * The root grows whenever an object leaves the currently covered area, so the tree
+ * is unbounded.
+ */
+final class QuadtreeIndex extends SpatialIndex {
+
+    /**
+     * Number of objects a leaf may hold before it gets split.
+     */
+    private static final int LEAF_CAPACITY = 16;
+
+    /**
+     * Leaves with half the side length smaller than this are not split any further.
+     * Prevents endless splitting of many objects on the same location.
+     */
+    private static final float MIN_HALF_SIZE = 0.5f;
+
+    /**
+     * Half of the side length of the root when the first object is inserted.
+     */
+    private static final float INITIAL_HALF_SIZE = 1024;
+
+    /**
+     * Coordinates are clamped to this range to keep the tree size finite.
+     */
+    private static final float MAX_COORDINATE = 1e9f;
+
+
+    /**
+     * A node of the tree. Only leaves store objects.
+     */
+    private static final class Node extends Bucket {
+
+        final float centerX, centerY, halfSize;
+        Node parent;
+        Node[] children = null;
+        /**
+         * Number of objects in the subtree.
+         */
+        int count = 0;
+
+        Node(float centerX, float centerY, float halfSize, Node parent) {
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.halfSize = halfSize;
+            this.parent = parent;
+        }
+
+        boolean contains(float x, float y) {
+            return x >= centerX - halfSize && x < centerX + halfSize
+                && y >= centerY - halfSize && y < centerY + halfSize;
+        }
+
+        boolean intersects(float minX, float minY, float maxX, float maxY) {
+            return maxX >= centerX - halfSize && minX < centerX + halfSize
+                && maxY >= centerY - halfSize && minY < centerY + halfSize;
+        }
+
+        int childIndex(float x, float y) {
+            return (x >= centerX ? 1 : 0) | (y >= centerY ? 2 : 0);
+        }
+
+        Node child(int index) {
+            float quarter = halfSize / 2;
+            return new Node(
+                    centerX + ((index & 1) != 0 ? quarter : -quarter),
+                    centerY + ((index & 2) != 0 ? quarter : -quarter),
+                    quarter, this
+            );
+        }
+    }
+
+
+    /**
+     * The root of the tree, or {@code null} if nothing was inserted yet.
+     */
+    private Node root = null;
+
+
+    @Override
+    void insert(GameObject object) {
+        float x = clamp(object.location.x), y = clamp(object.location.y);
+
+        if(root == null)
+            root = new Node(x, y, INITIAL_HALF_SIZE, null);
+        while(!root.contains(x, y))
+            grow(x, y);
+
+        Node node = root;
+        while(node.children != null) {
+            node.count++;
+            node = node.children[node.childIndex(x, y)];
+        }
+        node.count++;
+        node.add(object);
+        if(node.size > LEAF_CAPACITY && node.halfSize >= MIN_HALF_SIZE)
+            split(node);
+    }
+
+    @Override
+    void remove(GameObject object) {
+        Node leaf = (Node) object.spatialBucket;
+        leaf.remove(object);
+        for(Node n = leaf; n != null; n = n.parent) n.count--;
+        Node parent = leaf.parent;
+        if(parent != null && parent.count <= LEAF_CAPACITY / 2)
+            merge(parent);
+    }
+
+    @Override
+    void update(GameObject object) {
+        Node leaf = (Node) object.spatialBucket;
+        if(leaf.contains(clamp(object.location.x), clamp(object.location.y))) return;
+        remove(object);
+        insert(object);
+    }
+
+    @Override
+    void query(float minX, float minY, float maxX, float maxY, List<? super GameObject> out) {
+        if(root != null)
+            query(root, clamp(minX), clamp(minY), clamp(maxX), clamp(maxY), minX, minY, maxX, maxY, out);
+    }
+
+    private static void query(Node node, float cMinX, float cMinY, float cMaxX, float cMaxY,
+                              float minX, float minY, float maxX, float maxY, List<? super GameObject> out) {
+        if(node.count == 0 || !node.intersects(cMinX, cMinY, cMaxX, cMaxY)) return;
+        if(node.children == null)
+            node.collect(minX, minY, maxX, maxY, out);
+        else for(Node child : node.children)
+            query(child, cMinX, cMinY, cMaxX, cMaxY, minX, minY, maxX, maxY, out);
+    }
+
+    @Override
+    void clear() {
+        if(root != null) clear(root);
+        root = null;
+    }
+
+    private static void clear(Node node) {
+        if(node.children == null) node.clear();
+        else for(Node child : node.children) clear(child);
+    }
+
+    /**
+     * Replaces the root with one of twice the size, extending into the direction
+     * of the given location.
+     */
+    private void grow(float x, float y) {
+        Node old = root;
+        float h = old.halfSize;
+        Node grown = new Node(
+                old.centerX + (x >= old.centerX ? h : -h),
+                old.centerY + (y >= old.centerY ? h : -h),
+                2 * h, null
+        );
+        grown.count = old.count;
+        grown.children = new Node[4];
+        int oldIndex = grown.childIndex(old.centerX, old.centerY);
+        for(int i=0; i<4; i++)
+            grown.children[i] = i == oldIndex ? old : grown.child(i);
+        old.parent = grown;
+        root = grown;
+    }
+
+    /**
+     * Splits the given leaf into four children and distributes its objects.
+     */
+    private static void split(Node leaf) {
+        leaf.children = new Node[4];
+        for(int i=0; i<4; i++)
+            leaf.children[i] = leaf.child(i);
+
+        GameObject[] objects = leaf.objects;
+        int size = leaf.size;
+        leaf.objects = new GameObject[0];
+        leaf.size = 0;
+        for(int i=0; i<size; i++) {
+            GameObject o = objects[i];
+            Node child = leaf.children[leaf.childIndex(clamp(o.location.x), clamp(o.location.y))];
+            child.count++;
+            child.add(o);
+        }
+    }
+
+    /**
+     * Collapses the given node into a leaf, if all its children are leaves.
+     */
+    private static void merge(Node node) {
+        for(Node child : node.children)
+            if(child.children != null) return;
+
+        node.objects = new GameObject[Math.max(4, node.count)];
+        node.size = 0;
+        for(Node child : node.children)
+            for(int i=0; i<child.size; i++)
+                node.add(child.objects[i]);
+        node.children = null;
+    }
+
+    /**
+     * Clamps the given coordinate into the supported range, mapping {@code NaN}
+     * to 0.
+     */
+    private static float clamp(float coordinate) {
+        if(coordinate != coordinate) return 0;
+        return Math.max(-MAX_COORDINATE, Math.min(MAX_COORDINATE, coordinate));
+    }
+}
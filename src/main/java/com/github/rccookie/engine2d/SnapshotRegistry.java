@@ -0,0 +1,162 @@
+package com.github.rccookie.engine2d;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.github.rccookie.engine2d.image.Image;
+import com.github.rccookie.util.Arguments;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Assigns stable keys to the gameobject types and images used in {@link MapSnapshot}s,
+ * so that snapshots can be restored, also in a different process. Each gameobject
+ * type needs a factory that creates a gameobject with the same components, in the
+ * same order, as the captured gameobjects of that type.
+ *
+ * <p>Gameobjects can be {@link #setExcluded(Predicate) excluded} from snapshots.
+ * Excluded gameobjects are neither captured nor removed when restoring a snapshot.
+ * The gameobject of the active camera is always excluded, so that restoring a
+ * snapshot does not change the view.</p>
+ */
+public class SnapshotRegistry {
+
+    /**
+     * Keys of the registered gameobject types.
+     */
+    private final java.util.Map<Class<?>, String> typeKeys = new HashMap<>();
+
+    /**
+     * Factories of the registered gameobject types, by key.
+     */
+    private final java.util.Map<String, Supplier<? extends GameObject>> factories = new HashMap<>();
+
+    /**
+     * Keys of the registered images.
+     */
+    private final java.util.Map<Image, String> imageKeys = new IdentityHashMap<>();
+
+    /**
+     * Registered images, by key.
+     */
+    private final java.util.Map<String, Image> images = new HashMap<>();
+
+    /**
+     * Tests whether a gameobject is excluded from snapshots.
+     */
+    private Predicate<? super GameObject> excluded = o -> false;
+
+
+    /**
+     * Registers the given gameobject type. Only gameobjects of registered types can be
+     * captured. Subclasses have to be registered separately.
+     *
+     * @param key The unique key of the type within this registry
+     * @param type The concrete type of the gameobjects
+     * @param factory Creates a new gameobject of the given type, not on any map
+     * @return This registry
+     */
+    @NotNull
+    public <T extends GameObject> SnapshotRegistry registerType(@NotNull String key, @NotNull Class<T> type, @NotNull Supplier<? extends T> factory) {
+        Arguments.checkNull(key, "key");
+        Arguments.checkNull(type, "type");
+        Arguments.checkNull(factory, "factory");
+        if(factories.containsKey(key))
+            throw new IllegalArgumentException("A type with the key '" + key + "' is already registered");
+        typeKeys.put(type, key);
+        factories.put(key, factory);
+        return this;
+    }
+
+    /**
+     * Registers the given image. Gameobjects showing a registered image will show that
+     * image again after restoring. Gameobjects showing an unregistered image keep the
+     * image set by their factory.
+     *
+     * @param key The unique key of the image within this registry, for example
+     *            its file name
+     * @param image The image to register
+     * @return This registry
+     */
+    @NotNull
+    public SnapshotRegistry registerImage(@NotNull String key, @NotNull Image image) {
+        Arguments.checkNull(key, "key");
+        Arguments.checkNull(image, "image");
+        if(images.containsKey(key))
+            throw new IllegalArgumentException("An image with the key '" + key + "' is already registered");
+        imageKeys.put(image, key);
+        images.put(key, image);
+        return this;
+    }
+
+    /**
+     * Loads the image from the given file using {@link Image#load(String)} and registers
+     * it with the file name as key.
+     *
+     * @param file The image file to load
+     * @return The loaded image
+     */
+    @NotNull
+    public Image loadImage(@NotNull String file) {
+        Image image = Image.load(file);
+        registerImage(file, image);
+        return image;
+    }
+
+
+    /**
+     * Sets which gameobjects to exclude from snapshots, in addition to the gameobject
+     * of the active camera. Excluded gameobjects do not need a registered type. They
+     * are not captured and stay on the map when a snapshot gets restored, for example
+     * gameobjects holding other cameras or user interface helpers.
+     *
+     * @param excluded Tests whether a gameobject should be excluded
+     * @return This registry
+     */
+    @NotNull
+    public SnapshotRegistry setExcluded(@NotNull Predicate<? super GameObject> excluded) {
+        this.excluded = Arguments.checkNull(excluded, "excluded");
+        return this;
+    }
+
+    /**
+     * Returns whether the given gameobject is part of snapshots, that is, whether it
+     * is neither the gameobject of the active camera nor excluded.
+     *
+     * @param object The gameobject to test
+     * @return Whether the gameobject gets captured
+     */
+    public boolean isCaptured(@NotNull GameObject object) {
+        Camera camera = Camera.getActive();
+        if(camera != null && camera.getGameObject() == object) return false;
+        return !excluded.test(object);
+    }
+
+
+    String typeKey(GameObject object) {
+        String key = typeKeys.get(object.getClass());
+        if(key == null)
+            throw new IllegalStateException("Gameobject type " + object.getClass().getName() + " is not registered");
+        return key;
+    }
+
+    GameObject create(String typeKey) {
+        Supplier<? extends GameObject> factory = factories.get(typeKey);
+        if(factory == null)
+            throw new IllegalStateException("No gameobject type registered with the key '" + typeKey + "'");
+        GameObject object = Arguments.checkNull(factory.get(), "factory.get()");
+        if(object.getMap() != null)
+            throw new IllegalStateException("The gameobject created by the factory of '" + typeKey + "' must not be on a map");
+        return object;
+    }
+
+    String imageKey(Image image) {
+        return imageKeys.get(image);
+    }
+
+    Image image(String key) {
+        return images.get(key);
+    }
+}
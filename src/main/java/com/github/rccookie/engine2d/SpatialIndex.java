@@ -0,0 +1,192 @@
+package com.github.rccookie.engine2d;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.rccookie.geometry.performance.float2;
+import com.github.rccookie.util.ArgumentOutOfRangeException;
+
+/**
+ * A spatial index over the locations of the gameobjects on a map. The map uses
+ * it to answer proximity queries like {@link Map#objects(float2, float, Class)}
+ * without iterating all of its objects.
+ *
+ * <p>The index is maintained incrementally: each simulated gameobject is re-indexed
+ * once per map update, after the physics step, and gameobjects moved using
+ * {@link GameObject#setLocation(float, float)} are re-indexed before the next query.
+ * Queries always test the current location of the candidates, but an object whose
+ * {@link GameObject#location} was modified directly is only found at its new location
+ * after it has been re-indexed; use {@link Map#updateSpatialIndex()} if such moves
+ * have to be visible immediately.</p>
+ *
+ * <p>An index can only be used by a single map at a time.</p>
+ */
+public abstract class SpatialIndex {
+
+    /**
+     * The cell size of the index used by maps by default.
+     */
+    public static final float DEFAULT_CELL_SIZE = 128;
+
+
+    /**
+     * The map this index is used by, if any.
+     */
+    Map map = null;
+
+
+    /**
+     * Package-private constructor to prevent external implementations.
+     */
+    SpatialIndex() { }
+
+
+    /**
+     * Creates a new spatial index that sorts the objects into a uniform grid. This
+     * works best if the queried ranges are in the order of the cell size.
+     *
+     * @param cellSize The width and height of each grid cell
+     * @return A new grid index
+     */
+    public static SpatialIndex grid(float cellSize) {
+        return new GridIndex(cellSize);
+    }
+
+    /**
+     * Creates a new spatial index that sorts the objects into a quadtree. This
+     * adapts to very unevenly distributed objects and queried ranges of varying
+     * size, but updates are a bit more expensive than with a grid.
+     *
+     * @return A new quadtree index
+     */
+    public static SpatialIndex quadtree() {
+        return new QuadtreeIndex();
+    }
+
+
+    /**
+     * Adds the given gameobject to the index.
+     *
+     * @param object The object to add
+     */
+    abstract void insert(GameObject object);
+
+    /**
+     * Removes the given gameobject from the index.
+     *
+     * @param object The object to remove
+     */
+    abstract void remove(GameObject object);
+
+    /**
+     * Moves the given gameobject into the part of the index that contains its
+     * current location, if it moved out of the part it was indexed in.
+     *
+     * @param object The object to re-index
+     */
+    abstract void update(GameObject object);
+
+    /**
+     * Adds all gameobjects whose current location lies within the given rectangle
+     * (inclusive) to the given list.
+     *
+     * @param minX Lower x bound of the rectangle
+     * @param minY Lower y bound of the rectangle
+     * @param maxX Upper x bound of the rectangle
+     * @param maxY Upper y bound of the rectangle
+     * @param out The list to add the objects to
+     */
+    abstract void query(float minX, float minY, float maxX, float maxY, List<? super GameObject> out);
+
+    /**
+     * Removes all gameobjects from the index.
+     */
+    abstract void clear();
+
+
+
+    /**
+     * A group of gameobjects stored together in the index. Each object knows its
+     * bucket and its slot within it, so it can be removed in constant time.
+     */
+    static class Bucket {
+
+        /**
+         * The objects in this bucket, only the first {@link #size} are valid.
+         */
+        GameObject[] objects = new GameObject[4];
+
+        /**
+         * Number of objects in this bucket.
+         */
+        int size = 0;
+
+
+        /**
+         * Adds the given object to this bucket.
+         *
+         * @param object The object to add
+         */
+        void add(GameObject object) {
+            if(size == objects.length)
+                objects = Arrays.copyOf(objects, Math.max(4, size * 2));
+            object.spatialBucket = this;
+            object.spatialSlot = size;
+            objects[size++] = object;
+        }
+
+        /**
+         * Removes the given object from this bucket. The object must be in this
+         * bucket.
+         *
+         * @param object The object to remove
+         */
+        void remove(GameObject object) {
+            int slot = object.spatialSlot;
+            GameObject last = objects[--size];
+            objects[slot] = last;
+            last.spatialSlot = slot;
+            objects[size] = null;
+            object.spatialBucket = null;
+        }
+
+        /**
+         * Adds all objects of this bucket that are located within the given
+         * rectangle to the given list.
+         */
+        void collect(float minX, float minY, float maxX, float maxY, List<? super GameObject> out) {
+            for(int i=0; i<size; i++) {
+                GameObject o = objects[i];
+                float x = o.location.x, y = o.location.y;
+                if(x >= minX && x <= maxX && y >= minY && y <= maxY)
+                    out.add(o);
+            }
+        }
+
+        /**
+         * Removes all objects from this bucket.
+         */
+        void clear() {
+            for(int i=0; i<size; i++) {
+                objects[i].spatialBucket = null;
+                objects[i] = null;
+            }
+            size = 0;
+        }
+    }
+
+
+
+    /**
+     * Checks that the given value is a valid, positive size.
+     *
+     * @param size The size to check
+     * @param name The name of the parameter
+     * @return The size
+     */
+    static float checkSize(float size, String name) {
+        if(!(size > 0) || Float.isInfinite(size))
+            throw new ArgumentOutOfRangeException(name + " must be positive and finite, got " + size);
+        return size;
+    }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 
 import com.github.rccookie.engine2d.core.LoopExecutor;
+import com.github.rccookie.engine2d.core.stats.FramePhase;
 import com.github.rccookie.util.Arguments;
 
 import org.jetbrains.annotations.Nullable;
@@ -17,12 +18,14 @@ public enum Time {
 
     static {
         LoopExecutor.setTimeUpdate(Time::update);
+        LoopExecutor.setTickUpdate(Time::nextTick);
     }
 
     private static long lastNanos = System.nanoTime();
 
     private static float maxDelta = 0.05f; // Box2D probably does not like <20 fps when designed for 50
     private static Float fixedDelta = null;
+    private static Float fixedTimestep = null;
     private static float timeScale = 1;
 
     private static long frameNanos = 20000000L;
@@ -30,6 +33,10 @@ public enum Time {
     private static float time = 0;
     private static float realTime = 0;
     private static long frame = -1; // first frame should be indexed 0, updated before update
+    private static long tick = -1;
+
+    private static float tickAccumulator = 0;
+    private static boolean frameTickPending = false;
 
     private static final Deque<Long> lastSecondFrameNanos = new ArrayDeque<>();
     private static float lastSecondFrameNanosSpan = 0;
@@ -44,9 +51,14 @@ public enum Time {
         lastNanos = nanos;
 
         realTime += delta;
-        time += delta();
         frame++;
 
+        if(fixedTimestep == null) frameTickPending = true;
+        // Limit the time to catch up per frame, otherwise a slow simulation would only get slower
+        else tickAccumulator += Math.min(delta, Math.max(maxDelta, fixedTimestep));
+
+        Application.frameTimes.record(FramePhase.FRAME, frameNanos);
+
         lastSecondFrameNanos.addLast(frameNanos);
         lastSecondFrameNanosSpan += frameNanos;
 
@@ -54,14 +66,36 @@ public enum Time {
             lastSecondFrameNanosSpan -= lastSecondFrameNanos.removeFirst();
     }
 
+    /**
+     * Advances the simulation time by one tick, if a tick is due. Without a fixed timestep
+     * exactly one tick is due per frame.
+     *
+     * @return Whether a tick was due and has been started
+     */
+    private static boolean nextTick() {
+        if(fixedTimestep == null) {
+            if(!frameTickPending) return false;
+            frameTickPending = false;
+        }
+        else {
+            if(tickAccumulator < fixedTimestep) return false;
+            tickAccumulator -= fixedTimestep;
+        }
+        time += delta();
+        tick++;
+        return true;
+    }
+
     /**
      * Returns the current time delta. This is the time of the last frame, in seconds. In
      * other words, summing up the delta every frame will exactly count the number of seconds
      * since start of summing up.
+     * <p>If a fixed timestep is set, this is the length of one simulation tick instead.</p>
      *
      * @return The current time delta
      */
     public static float delta() {
+        if(fixedTimestep != null) return timeScale * fixedTimestep;
         return timeScale * (fixedDelta == null ? Math.min(delta, maxDelta) : fixedDelta);
     }
 
@@ -112,6 +146,30 @@ public enum Time {
         return Math.max(0, frame); // In case it's called before the first update
     }
 
+    /**
+     * Returns the index of the current simulation tick. Without a fixed timestep this
+     * is the same as {@link #frame()}.
+     *
+     * @return The index of the current tick
+     */
+    public static long tick() {
+        return Math.max(0, tick);
+    }
+
+    /**
+     * Returns how far the real time has progressed from the last simulation tick
+     * towards the next one, in the range {@code [0,1]}. This is used to interpolate
+     * the rendered state between the last two ticks. Without a fixed timestep this
+     * is always {@code 1}.
+     *
+     * @return The interpolation factor for rendering
+     */
+    public static float interpolation() {
+        Float timestep = fixedTimestep;
+        if(timestep == null) return 1;
+        return Math.min(1, tickAccumulator / timestep);
+    }
+
     /**
      * Returns the number of frames rendered in the last second.
      *
@@ -193,4 +251,52 @@ public enum Time {
     public static void setFixedDelta(@Nullable Float fixedDelta) {
         Time.fixedDelta = fixedDelta;
     }
+
+    /**
+     * Returns the fixed simulation timestep that is currently set, in seconds. {@code null}
+     * indicates that the simulation is updated exactly once per frame.
+     *
+     * @return The current fixed timestep
+     */
+    public static Float getFixedTimestep() {
+        return fixedTimestep;
+    }
+
+    /**
+     * Returns whether the simulation is running with a fixed timestep, independent of
+     * the framerate.
+     *
+     * @return Whether a fixed timestep is used
+     */
+    public static boolean isFixedTimestep() {
+        return fixedTimestep != null;
+    }
+
+    /**
+     * Sets the fixed simulation timestep, in seconds. If set, the update loop will run
+     * the update events (including physics) as many times per frame as needed to keep
+     * up with the real time at that tick rate, which may also be not at all on a frame.
+     * Rendering interpolates the gameobjects' transforms between the last two ticks. This
+     * bounds the update cost per second of game time, independent of the framerate.
+     * {@code null} means to update once per frame using the dynamically measured time
+     * delta, which is the default.
+     *
+     * @param fixedTimestep The fixed timestep to set
+     */
+    public static void setFixedTimestep(@Nullable Float fixedTimestep) {
+        if(fixedTimestep != null)
+            Arguments.checkExclusive(fixedTimestep, 0d, null);
+        tickAccumulator = 0;
+        Time.fixedTimestep = fixedTimestep;
+    }
+
+    /**
+     * Sets the fixed simulation tick rate. This is equivalent to
+     * {@code setFixedTimestep(1 / tickRate)}. Non-positive values disable the fixed timestep.
+     *
+     * @param tickRate The number of simulation ticks per second
+     */
+    public static void setTickRate(float tickRate) {
+        setFixedTimestep(tickRate <= 0 ? null : 1 / tickRate);
+    }
 }
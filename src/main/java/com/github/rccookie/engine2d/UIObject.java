@@ -258,8 +258,9 @@ public abstract class UIObject implements Iterable<UIObject> {
 
     /**
      * Local input manager only active when the ui object is enabled globally.
+     * Only connected to the global input while the ui object is part of a ui.
      */
-    public final LocalInputManager input = new LocalInputManager.Impl(update, this::isEnabledAndOnScreen);
+    public final LocalInputManager input = new LocalInputManager.Impl(update, this::isEnabledAndOnScreen, false);
     /**
      * Local execution manager only active when the ui object is enabled globally.
      */
@@ -307,6 +308,7 @@ public abstract class UIObject implements Iterable<UIObject> {
         // UI would throw an error if trying to set the parent, even when setting it to null
         if(parent != null)
             setParent(parent);
+        else setInputConnected(getUI() != null);
 
         update.add(this::updateHoverState);
         onHoverChange.add(s -> hovered = s); // <- TODO: These constant updates cause update always to be needed
@@ -844,6 +846,19 @@ public abstract class UIObject implements Iterable<UIObject> {
         }
         if(sizeChanged && onParentSizeChange.getActions().size() != 0)
             onParentSizeChange.invoke(parent != null ? parent.getSize() : int2.zero);
+        setInputConnected(getUI() != null);
+    }
+
+    /**
+     * Connects or disconnects the input managers of this ui object and all its
+     * children to the global input.
+     *
+     * @param connected Whether this ui object is part of a ui
+     */
+    private void setInputConnected(boolean connected) {
+        if(input.isConnected() == connected) return;
+        input.setConnected(connected);
+        for(UIObject child : children) child.setInputConnected(connected);
     }
 
     /**
@@ -0,0 +1,109 @@
+package com.github.rccookie.engine2d;
+
+import java.util.Arrays;
+
+/**
+ * The gameobjects of a map whose update or late update events have listeners, in
+ * no particular order. Each gameobject stores its slot in the list, so adding and
+ * removing are constant time swap operations instead of searching and shifting
+ * the list.
+ */
+final class UpdateList {
+
+    /**
+     * The map the gameobjects are on.
+     */
+    private final Map map;
+
+    /**
+     * Whether this is the list for the late update.
+     */
+    private final boolean late;
+
+    /**
+     * The registered gameobjects, only the first {@link #size} are valid.
+     */
+    private GameObject[] objects = new GameObject[16];
+
+    /**
+     * Copy of {@link #objects} that is iterated while invoking, so that the list can
+     * be modified by the invoked updates.
+     */
+    private GameObject[] invoking = new GameObject[0];
+
+    /**
+     * Number of registered gameobjects.
+     */
+    private int size = 0;
+
+
+    /**
+     * Creates a new update list.
+     *
+     * @param map The map the gameobjects are on
+     * @param late Whether to invoke the late update rather than the update
+     */
+    UpdateList(Map map, boolean late) {
+        this.map = map;
+        this.late = late;
+    }
+
+
+    /**
+     * Adds the given gameobject to the list.
+     *
+     * @param object The gameobject to add, which must not be in the list
+     */
+    void add(GameObject object) {
+        if(size == objects.length)
+            objects = Arrays.copyOf(objects, size * 2);
+        setSlot(object, size);
+        objects[size++] = object;
+    }
+
+    /**
+     * Removes the given gameobject from the list.
+     *
+     * @param object The gameobject to remove, which must be in the list
+     */
+    void remove(GameObject object) {
+        int slot = getSlot(object);
+        GameObject last = objects[--size];
+        objects[slot] = last;
+        setSlot(last, slot);
+        objects[size] = null;
+        setSlot(object, -1);
+    }
+
+    /**
+     * Invokes the update or late update of all gameobjects in the list, and
+     * re-indexes each of them in the map's spatial index afterwards. Gameobjects
+     * removed from the list during the iteration are skipped, gameobjects added
+     * will be updated starting with the next invocation.
+     */
+    void invoke() {
+        int count = size;
+        if(invoking.length < count)
+            invoking = new GameObject[objects.length];
+        System.arraycopy(objects, 0, invoking, 0, count);
+
+        for(int i=0; i<count; i++) {
+            GameObject o = invoking[i];
+            invoking[i] = null;
+            if(getSlot(o) < 0 || o.map != map) continue;
+            if(late) o.lateUpdate.invoke();
+            else o.update.invoke();
+            // Make own movement visible to queries of the following objects
+            if(o.map == map) map.spatialIndex.update(o);
+        }
+    }
+
+    private int getSlot(GameObject object) {
+        return late ? object.lateUpdateSlot : object.updateSlot;
+    }
+
+    private void setSlot(GameObject object, int slot) {
+        if(late) object.lateUpdateSlot = slot;
+        else object.updateSlot = slot;
+    }
+}
@@ -186,10 +186,8 @@ public class Follower extends Component {
         if(followAngle)
             gameObject.angle = target.angle + angleOffset;
         if(followLocation) {
-            gameObject.location.set(target.location);
-            if(angledOffset && !offset.isZero())
-                gameObject.location.add(offset.rotated(target.angle));
-            else gameObject.location.add(offset);
+            float2 delta = angledOffset && !offset.isZero() ? offset.rotated(target.angle) : offset;
+            gameObject.setLocation(target.location.x + delta.x, target.location.y + delta.y);
         }
     }
 }
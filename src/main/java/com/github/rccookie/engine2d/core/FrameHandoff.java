@@ -0,0 +1,61 @@
+package com.github.rccookie.engine2d.core;
+
+import java.util.concurrent.Phaser;
+
+import com.github.rccookie.util.Arguments;
+
+/**
+ * Barrier used to hand the frame over between the loop threads. Each waiting thread
+ * spins according to its {@link WaitPolicy} and then parks, so idle loop threads do
+ * not use any cpu time.
+ */
+final class FrameHandoff {
+
+    /**
+     * The underlying phaser, one phase per barrier.
+     */
+    private final Phaser phaser;
+
+    /**
+     * The policy used for waiting.
+     */
+    private volatile WaitPolicy policy = WaitPolicy.DEFAULT;
+
+
+    /**
+     * Creates a new frame handoff for the given number of threads.
+     *
+     * @param parties The number of threads participating
+     */
+    FrameHandoff(int parties) {
+        phaser = new Phaser(parties);
+    }
+
+
+    /**
+     * Arrives at the barrier and waits until all other threads have arrived as well.
+     *
+     * @return The time spent waiting, in nanoseconds
+     */
+    long arriveAndAwait() {
+        long start = System.nanoTime();
+        int phase = phaser.arrive();
+        long spinNanos = policy.spinNanos;
+        while(phaser.getPhase() == phase) {
+            if(System.nanoTime() - start >= spinNanos) {
+                phaser.awaitAdvance(phase);
+                break;
+            }
+            Thread.onSpinWait();
+        }
+        return System.nanoTime() - start;
+    }
+
+    WaitPolicy getPolicy() {
+        return policy;
+    }
+
+    void setPolicy(WaitPolicy policy) {
+        this.policy = Arguments.checkNull(policy, "policy");
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.rccookie.engine2d.core;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.rccookie.engine2d.Application;
+import com.github.rccookie.engine2d.util.Num;
+
+/**
+ * Waits for the start of the next frame as precisely as possible. OS sleeps and
+ * parks regularly wake up late, so the pacer sleeps only until shortly before the
+ * target, parks for most of the rest and busy-spins the last microseconds.
+ *
+ * <p>How late a sleep or park may wake up (the timer slack) is measured once when
+ * first waiting, and then continuously corrected by the actual overshoots. This
+ * trades a fraction of a core for the final sub-millisecond for consistent frame
+ * intervals.</p>
+ */
+final class FramePacer {
+
+    /**
+     * Number of sleeps and parks performed to measure the timer slack.
+     */
+    private static final int CALIBRATION_SAMPLES = 8;
+
+    /**
+     * Timer slack assumed for sleeps if it could not be measured, in nanoseconds.
+     */
+    private static final long DEFAULT_SLEEP_SLACK = 2000000;
+
+    /**
+     * The minimum timer slack assumed, in nanoseconds.
+     */
+    private static final long MIN_SLACK = 20000;
+
+    /**
+     * Additional safety margin on top of the measured timer slack, in nanoseconds.
+     */
+    private static final long SLACK_MARGIN = 50000;
+
+    /**
+     * Weight of the previous slack when correcting it downwards.
+     */
+    private static final int SLACK_DECAY = 16;
+
+
+    /**
+     * Whether the timer slack was measured yet.
+     */
+    private boolean calibrated = false;
+
+    /**
+     * Maximum expected overshoot of a sleep, in nanoseconds.
+     */
+    private long sleepSlack = DEFAULT_SLEEP_SLACK;
+
+    /**
+     * Maximum expected overshoot of a park, in nanoseconds.
+     */
+    private long parkSlack = MIN_SLACK;
+
+
+    /**
+     * Waits until {@link System#nanoTime()} reaches the given target.
+     *
+     * @param target The time to wait for, in {@link System#nanoTime()} time
+     * @return How late the wait ended, in nanoseconds, or -1 if the target had
+     *         already passed and no wait was needed
+     */
+    long waitUntil(long target) {
+        long time = System.nanoTime();
+        if(time >= target) return -1;
+        if(!calibrated) calibrate();
+
+        long remaining = target - time;
+        if(remaining > sleepSlack) {
+            long duration = remaining - sleepSlack;
+            Application.getImplementation().sleep(duration / 1000000, (int) (duration % 1000000));
+            long end = System.nanoTime();
+            sleepSlack = correct(sleepSlack, end - time - duration);
+            time = end;
+        }
+
+        remaining = target - time;
+        if(remaining > parkSlack) {
+            long duration = remaining - parkSlack;
+            LockSupport.parkNanos(duration);
+            long end = System.nanoTime();
+            parkSlack = correct(parkSlack, end - time - duration);
+            time = end;
+        }
+
+        while((time = System.nanoTime()) < target)
+            Thread.onSpinWait();
+        return time - target;
+    }
+
+    /**
+     * Returns the currently assumed timer slack of sleeps.
+     *
+     * @return The expected maximum sleep overshoot, in nanoseconds
+     */
+    long getSleepSlack() {
+        return sleepSlack;
+    }
+
+    /**
+     * Measures the timer slack of sleeps and parks by performing some short ones.
+     */
+    private void calibrate() {
+        calibrated = true;
+
+        long maxPark = 0;
+        for(int i=0; i<CALIBRATION_SAMPLES; i++) {
+            long start = System.nanoTime();
+            LockSupport.parkNanos(100000);
+            maxPark = Num.max(maxPark, System.nanoTime() - start - 100000);
+        }
+        parkSlack = Num.max(MIN_SLACK, maxPark + SLACK_MARGIN);
+
+        long maxSleep = 0;
+        for(int i=0; i<CALIBRATION_SAMPLES; i++) {
+            long start = System.nanoTime();
+            Application.getImplementation().sleep(1, 0);
+            maxSleep = Num.max(maxSleep, System.nanoTime() - start - 1000000);
+        }
+        sleepSlack = Num.max(MIN_SLACK, maxSleep + SLACK_MARGIN);
+    }
+
+    /**
+     * Corrects the assumed slack by an observed overshoot. Overshoots larger than
+     * expected are adopted immediately, smaller ones only slowly lower the slack to
+     * avoid oscillation.
+     *
+     * @param slack The currently assumed slack
+     * @param overshoot The observed overshoot
+     * @return The corrected slack
+     */
+    private static long correct(long slack, long overshoot) {
+        long observed = Num.max(MIN_SLACK, overshoot + SLACK_MARGIN);
+        if(observed > slack) return observed;
+        return slack - (slack - observed) / SLACK_DECAY;
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.rccookie.engine2d.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.rccookie.engine2d.Camera;
+import com.github.rccookie.engine2d.image.Color;
+
+/**
+ * A snapshot of everything needed to render a single frame. Snapshots are written
+ * by the update thread using {@link Camera#prepareRender(FrameSnapshot)} and then
+ * handed over to the render thread which renders them using {@link Camera#render(FrameSnapshot)}.
+ * While a snapshot is owned by one of the threads it will not be accessed by the
+ * other one, so no locking is required.
+ *
+ * <p>This is an internal class.</p>
+ */
+public final class FrameSnapshot {
+
+    /**
+     * The draw objects of this snapshot. They are owned by the snapshot and will be
+     * reused for following frames.
+     */
+    public final List<DrawObject> drawObjects = new ArrayList<>();
+
+    /**
+     * The camera that prepared this snapshot.
+     */
+    public Camera camera;
+
+    /**
+     * The background color to render with.
+     */
+    public Color background;
+
+    /**
+     * A hash over the contents of this snapshot.
+     */
+    public int hash;
+
+    /**
+     * Cached array of the draw objects, reused as long as the number of draw
+     * objects does not change.
+     */
+    private DrawObject[] array = new DrawObject[0];
+
+
+    /**
+     * Returns the draw objects of this snapshot as array. The returned array may be
+     * reused by the snapshot and must not be modified.
+     *
+     * @return The draw objects as array
+     */
+    public DrawObject[] toArray() {
+        if(array.length != drawObjects.size())
+            array = new DrawObject[drawObjects.size()];
+        return drawObjects.toArray(array);
+    }
+}
@@ -1,18 +1,63 @@
 package com.github.rccookie.engine2d.core;
 
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import com.github.rccookie.engine2d.Input;
 import com.github.rccookie.engine2d.Mouse;
 import com.github.rccookie.engine2d.util.OrderedParamEvent;
 import com.github.rccookie.event.Event;
 import com.github.rccookie.event.ParamEvent;
+import com.github.rccookie.event.action.Action;
+import com.github.rccookie.event.action.ConsumableAction;
+import com.github.rccookie.event.action.ConsumableParamAction;
+import com.github.rccookie.event.action.ParamAction;
 import com.github.rccookie.util.Arguments;
 import org.jetbrains.annotations.NotNull;
 
 public abstract class LocalInputManager {
 
+    /**
+     * All registered input managers, in the order they were created. Only these
+     * receive the global input events. Dispatching in creation order rather than
+     * registration order keeps the order in which overlapping objects consume input
+     * stable when managers get unregistered and registered again.
+     */
+    private static final Set<LocalInputManager> CONNECTED = new TreeSet<>(Comparator.comparingLong(m -> m.order));
+
+    /**
+     * The creation index of the next input manager.
+     */
+    private static long nextOrder = 0;
+
+    /**
+     * Snapshot of {@link #CONNECTED} used for dispatching, or {@code null} if it
+     * has to be recreated.
+     */
+    private static LocalInputManager[] connectedSnapshot = null;
+
+    static {
+        // Registered once for all input managers, rather than once per manager
+        Input.keyPressed   .addConsuming(k -> dispatchConsuming(k, m -> m.keyPressed));
+        Input.keyReleased  .addConsuming(k -> dispatchConsuming(k, m -> m.keyReleased));
+        Input.mousePressed .addConsuming(m -> dispatchConsuming(m, l -> l.mousePressed));
+        Input.mouseReleased.addConsuming(m -> dispatchConsuming(m, l -> l.mouseReleased));
+        Input.keyPressed   .add(k -> dispatchNonConsuming(k, m -> m.keyPressed));
+        Input.keyReleased  .add(k -> dispatchNonConsuming(k, m -> m.keyReleased));
+        Input.mousePressed .add(m -> dispatchNonConsuming(m, l -> l.mousePressed));
+        Input.mouseReleased.add(m -> dispatchNonConsuming(m, l -> l.mouseReleased));
+    }
+
+
+    /**
+     * The creation index of this input manager, determines the dispatch order.
+     */
+    private final long order;
+
     public final ParamEvent<String> keyPressed    = new SplitParamEvent<>();
     public final ParamEvent<String> keyReleased   = new SplitParamEvent<>();
     public final ParamEvent<Mouse>  mousePressed  = new SplitParamEvent<>();
@@ -20,23 +65,105 @@ public abstract class LocalInputManager {
 
     private final Event update;
 
+    /**
+     * Whether the owner of this input manager can currently receive input.
+     */
+    private boolean connected = false;
+
+    /**
+     * Whether this input manager is currently registered to receive the global
+     * input events, which is the case while it is connected and has any listeners.
+     * Read when dispatching, possibly on a different thread than the owner's.
+     */
+    private volatile boolean registered = false;
+
 
+    /**
+     * Creates a new input manager which is connected to the global input events.
+     *
+     * @param updateEvent The update event of the owner, used for key listeners
+     */
     public LocalInputManager(@NotNull Event updateEvent) {
+        this(updateEvent, true);
+    }
+
+    /**
+     * Creates a new input manager.
+     *
+     * @param updateEvent The update event of the owner, used for key listeners
+     * @param connected Whether the input manager should initially be connected
+     *                  to the global input events
+     */
+    public LocalInputManager(@NotNull Event updateEvent, boolean connected) {
+        synchronized(CONNECTED) {
+            order = nextOrder++;
+        }
         update = Arguments.checkNull(updateEvent);
-        Input.keyPressed   .addConsuming(k ->      isInputAvailable() && ((SplitParamEvent<String>) keyPressed)   .invokeConsuming(k));
-        Input.keyReleased  .addConsuming(k ->      isInputAvailable() && ((SplitParamEvent<String>) keyReleased)  .invokeConsuming(k));
-        Input.mousePressed .addConsuming(m ->      isInputAvailable() && ((SplitParamEvent<Mouse>)  mousePressed) .invokeConsuming(m));
-        Input.mouseReleased.addConsuming(m ->      isInputAvailable() && ((SplitParamEvent<Mouse>)  mouseReleased).invokeConsuming(m));
-        Input.keyPressed   .add(k -> { if(isInputAvailable())   ((SplitParamEvent<String>) keyPressed)   .invokeNonConsuming(k); });
-        Input.keyReleased  .add(k -> { if(isInputAvailable())   ((SplitParamEvent<String>) keyReleased)  .invokeNonConsuming(k); });
-        Input.mousePressed .add(k -> { if(isInputAvailable())   ((SplitParamEvent<Mouse>) mousePressed)  .invokeNonConsuming(k); });
-        Input.mouseReleased.add(k -> { if(isInputAvailable())   ((SplitParamEvent<Mouse>) mouseReleased) .invokeNonConsuming(k); });
+        setConnected(connected);
     }
 
 
     protected abstract boolean isInputAvailable();
 
 
+    /**
+     * Returns whether this input manager is connected, that is, whether it receives
+     * the global input events as soon as it has any listeners.
+     *
+     * @return Whether this input manager is connected
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Sets whether this input manager should receive the global input events.
+     * A connected input manager only receives them while it has any listeners.
+     * Input managers receive the events in the order they were created, independent
+     * of when they were connected. Note that UI objects always have listeners, so
+     * for them only being connected matters.
+     * A disconnected input manager or one without listeners does not cost anything
+     * on input and is not referenced globally, so it can be garbage collected
+     * together with its owner. Owners should disconnect their input manager while
+     * they cannot receive input anyway, for example while a gameobject is not on
+     * any map.
+     *
+     * @param connected Whether to connect or disconnect this input manager
+     */
+    public void setConnected(boolean connected) {
+        if(this.connected == connected) return;
+        this.connected = connected;
+        updateRegistration();
+    }
+
+    /**
+     * Registers or unregisters this input manager for the global input events,
+     * depending on whether it is connected and has any listeners.
+     */
+    private void updateRegistration() {
+        synchronized(CONNECTED) {
+            boolean register = connected && hasListeners();
+            if(registered == register) return;
+            registered = register;
+            if(register) CONNECTED.add(this);
+            else CONNECTED.remove(this);
+            connectedSnapshot = null;
+        }
+    }
+
+    /**
+     * Returns whether any of the input events of this input manager has listeners.
+     *
+     * @return Whether this input manager has any listeners
+     */
+    private boolean hasListeners() {
+        return ((SplitParamEvent<?>) keyPressed).hasActions() ||
+               ((SplitParamEvent<?>) keyReleased).hasActions() ||
+               ((SplitParamEvent<?>) mousePressed).hasActions() ||
+               ((SplitParamEvent<?>) mouseReleased).hasActions();
+    }
+
+
     public Mouse getMouse() {
         return Input.getMouse();
     }
@@ -95,13 +222,53 @@ public abstract class LocalInputManager {
         });
     }
 
+    private static LocalInputManager[] connected() {
+        synchronized(CONNECTED) {
+            if(connectedSnapshot == null)
+                connectedSnapshot = CONNECTED.toArray(new LocalInputManager[0]);
+            return connectedSnapshot;
+        }
+    }
+
+    /**
+     * Returns whether the given input manager should receive an input event now.
+     * Input managers whose listeners have all been removed get unregistered here,
+     * as removing a listener does not update the registration immediately.
+     */
+    private static boolean isReceiving(LocalInputManager manager) {
+        if(!manager.registered) return false;
+        if(!manager.hasListeners()) {
+            manager.updateRegistration();
+            return false;
+        }
+        return manager.isInputAvailable();
+    }
+
+    private static <T> boolean dispatchConsuming(T info, Function<LocalInputManager, ParamEvent<T>> event) {
+        for(LocalInputManager manager : connected())
+            if(isReceiving(manager) && ((SplitParamEvent<T>) event.apply(manager)).invokeConsuming(info))
+                return true;
+        return false;
+    }
+
+    private static <T> void dispatchNonConsuming(T info, Function<LocalInputManager, ParamEvent<T>> event) {
+        for(LocalInputManager manager : connected())
+            if(isReceiving(manager))
+                ((SplitParamEvent<T>) event.apply(manager)).invokeNonConsuming(info);
+    }
+
     public static class Impl extends LocalInputManager {
 
         private final BooleanSupplier isInputAvailable;
 
         public Impl(Event updateEvent, BooleanSupplier isInputAvailable) {
-            super(updateEvent);
+            this(updateEvent, isInputAvailable, true);
+        }
+
+        public Impl(Event updateEvent, BooleanSupplier isInputAvailable, boolean connected) {
+            super(updateEvent, false);
             this.isInputAvailable = isInputAvailable;
+            setConnected(connected);
         }
 
         @Override
@@ -112,7 +279,48 @@ public abstract class LocalInputManager {
 
 
 
-    private static class SplitParamEvent<T> extends OrderedParamEvent<T> {
+    /**
+     * Event that exposes the two invocation steps and registers its input manager
+     * when listeners get added.
+     */
+    private class SplitParamEvent<T> extends OrderedParamEvent<T> {
+
+        @Override
+        public @NotNull ParamAction<T> add(@NotNull ParamAction<T> action) {
+            super.add(action);
+            updateRegistration();
+            return action;
+        }
+
+        @Override
+        public @NotNull Action add(@NotNull Action action) {
+            super.add(action);
+            updateRegistration();
+            return action;
+        }
+
+        @Override
+        public @NotNull ConsumableParamAction<T> addConsuming(@NotNull ConsumableParamAction<T> action) {
+            super.addConsuming(action);
+            updateRegistration();
+            return action;
+        }
+
+        @Override
+        public @NotNull ConsumableAction addConsuming(@NotNull ConsumableAction action) {
+            super.addConsuming(action);
+            updateRegistration();
+            return action;
+        }
+
+        /**
+         * Returns whether this event has any consuming or non-consuming actions.
+         *
+         * @return Whether this event has any actions
+         */
+        boolean hasActions() {
+            return !lateActions.isEmpty() || getActions().size() != 0;
+        }
 
         @Override
         public boolean invokeConsuming(T info) {
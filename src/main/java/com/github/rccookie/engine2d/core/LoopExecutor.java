@@ -1,16 +1,21 @@
 package com.github.rccookie.engine2d.core;
 
+import java.util.function.BooleanSupplier;
+
 import com.github.rccookie.engine2d.Application;
+import com.github.rccookie.engine2d.Camera;
 import com.github.rccookie.engine2d.Time;
 import com.github.rccookie.engine2d.core.stats.Bottleneck;
+import com.github.rccookie.engine2d.core.stats.FramePhase;
 import com.github.rccookie.engine2d.util.Num;
 import com.github.rccookie.util.Arguments;
 
-public abstract class LoopExecutor {
+import org.jetbrains.annotations.Nullable;
 
-    private static final float DELAY_FACTOR = 0.999925f;
+public abstract class LoopExecutor {
 
     private static Runnable timeUpdate;
+    private static BooleanSupplier tickUpdate;
 
     private Bottleneck bottleneck = Bottleneck.FPS_CAP;
 
@@ -20,7 +25,9 @@ public abstract class LoopExecutor {
 
     private final boolean sleepingSupported = Application.getImplementation().supportsSleeping();
 
-    private final Object waitLock = new Object();
+    private final FramePacer pacer = new FramePacer();
+
+    private volatile long pacingError = 0;
 
 
     public long getIterationDelay() {
@@ -28,11 +35,11 @@ public abstract class LoopExecutor {
     }
 
     public float getFps() {
-        return 1000f / iterationDelay;
+        return iterationDelay == 0 ? 0 : 1000000000f / iterationDelay;
     }
 
     public void setFps(float fps) {
-        iterationDelay = fps <= 0 ? 0 : (long) (1000000000 / (fps+0.5f));
+        iterationDelay = fps <= 0 ? 0 : (long) (1000000000 / fps);
     }
 
     public void run() {
@@ -42,19 +49,20 @@ public abstract class LoopExecutor {
 
     public void runIteration() {
 
-        long time;
-//        if(nextFrameStartTarget - (time = System.nanoTime()) > 2000000 && (sleepingSupported || Application.FORCE_FPS_CAP))
-//            Application.getImplementation().sleep((nextFrameStartTarget - time - 2000000) / 1000000, 0);
-//        while(System.nanoTime() < nextFrameStartTarget) Thread.yield();
-//        while((time = System.nanoTime()) < nextFrameStartTarget);
-
-        if(nextFrameStartTarget - (time = System.nanoTime()) > 0 && (sleepingSupported || Application.FORCE_FPS_CAP))
-            Application.getImplementation().sleep((nextFrameStartTarget - time) / 1000000, 0);
+        long time = System.nanoTime();
+        if(sleepingSupported || Application.FORCE_FPS_CAP) {
+            long error = pacer.waitUntil(nextFrameStartTarget);
+            if(error >= 0) {
+                time = nextFrameStartTarget + error;
+                pacingError = error;
+                Application.getFrameTimeRecorder().record(FramePhase.PACING_ERROR, error);
+            }
+        }
 
         long expectedDuration = getIterationDelay();
         // Try to recover at most the frames lost in the last half second
         long frameStart = expectedDuration == 0 ? time : Num.max(nextFrameStartTarget, time - 500000000);
-        nextFrameStartTarget = frameStart + (long) (expectedDuration * DELAY_FACTOR);
+        nextFrameStartTarget = frameStart + expectedDuration;
 
         Bottleneck potentialBottleneck = runIterationUntimed();
 
@@ -71,6 +79,23 @@ public abstract class LoopExecutor {
         timeUpdate.run();
     }
 
+    /**
+     * Runs the update events for all simulation ticks due in this frame. Without a
+     * fixed timestep this is exactly one tick, otherwise it may also be none or
+     * multiple ticks.
+     *
+     * @param camera The camera to update, or {@code null}
+     */
+    @SuppressWarnings({"ResultOfMethodCallIgnored", "ConstantConditions"})
+    void runUpdate(@Nullable Camera camera) {
+        if(tickUpdate == null) Time.time();
+        while(tickUpdate.getAsBoolean()) {
+            Application.earlyUpdate.invoke();
+            if(camera != null) camera.update.invoke();
+            Application.lateUpdate.invoke();
+        }
+    }
+
     protected void setBottleneck(Bottleneck bottleneck) {
         this.bottleneck = Arguments.checkNull(bottleneck);
     }
@@ -79,12 +104,98 @@ public abstract class LoopExecutor {
         return bottleneck;
     }
 
+    /**
+     * Returns the fps cap this executor should start with, or {@code null} if the
+     * default fps cap should be used, which matches the refresh rate of the monitor.
+     *
+     * @return The initial fps cap
+     */
+    public Float getDefaultFps() {
+        return null;
+    }
+
     public abstract long getFrameDuration();
 
+    /**
+     * Returns how late the last frame that had to wait for the fps cap started
+     * compared to its scheduled start, in nanoseconds. Frames that started late
+     * because the previous frame took too long are not considered.
+     *
+     * @return The pacing error of the last paced frame
+     */
+    public long getPacingError() {
+        return pacingError;
+    }
+
+    /**
+     * Returns the currently assumed maximum time a sleep of the current
+     * implementation oversleeps, in nanoseconds. The loop wakes up this long
+     * before the next frame and waits the remaining time more precisely.
+     *
+     * @return The measured timer slack
+     */
+    public long getTimerSlack() {
+        return pacer.getSleepSlack();
+    }
+
+    /**
+     * Returns the time the loop threads waited for the last frame to start, in
+     * nanoseconds. This is mostly time spent waiting for the fps cap.
+     *
+     * @return The idle time of the last frame
+     */
+    public long getIdleDuration() {
+        return 0;
+    }
+
+    /**
+     * Returns the time the update thread waited for the render thread to finish
+     * the last frame, in nanoseconds.
+     *
+     * @return The update thread's synchronization wait time
+     */
+    public long getUpdateWaitDuration() {
+        return 0;
+    }
+
+    /**
+     * Returns the time the render thread waited for the update thread to finish
+     * the last frame, in nanoseconds.
+     *
+     * @return The render thread's synchronization wait time
+     */
+    public long getRenderWaitDuration() {
+        return 0;
+    }
+
+    /**
+     * Returns the policy used by the loop threads to wait for each other.
+     *
+     * @return The current wait policy
+     */
+    public WaitPolicy getWaitPolicy() {
+        return WaitPolicy.PARK;
+    }
+
+    /**
+     * Sets the policy used by the loop threads to wait for each other. Has no
+     * effect on non-parallel executors.
+     *
+     * @param policy The wait policy to use
+     */
+    public void setWaitPolicy(WaitPolicy policy) {
+        Arguments.checkNull(policy, "policy");
+    }
+
     public abstract boolean isParallel();
 
     public static void setTimeUpdate(Runnable update) {
         if(timeUpdate != null) throw new IllegalStateException();
         timeUpdate = update;
     }
+
+    public static void setTickUpdate(BooleanSupplier update) {
+        if(tickUpdate != null) throw new IllegalStateException();
+        tickUpdate = update;
+    }
 }
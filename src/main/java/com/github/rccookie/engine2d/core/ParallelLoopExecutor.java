@@ -2,14 +2,18 @@ package com.github.rccookie.engine2d.core;
 
 import java.util.function.Consumer;
 
-import com.github.rccookie.engine2d.Application;
 import com.github.rccookie.engine2d.Camera;
 import com.github.rccookie.engine2d.core.stats.Bottleneck;
-import com.github.rccookie.util.Console;
 
 public class ParallelLoopExecutor extends LoopExecutor {
 
-    private volatile boolean startLoops = false;
+    /**
+     * Barrier between the executing thread and the update and render thread. Each frame
+     * passes it twice: once to start the frame, and once to wait for both threads to
+     * finish it.
+     */
+    private final FrameHandoff handoff = new FrameHandoff(3);
+
     private volatile long frameDuration = 0;
     private volatile long renderDuration1 = 0, renderDuration2 = 0;
 
@@ -17,18 +21,9 @@ public class ParallelLoopExecutor extends LoopExecutor {
     LoopThread updateThread = new LoopThread("Update Thread", c -> {
         long frameStart = System.nanoTime();
         updateTime();
-        Application.earlyUpdate.invoke();
-        if(c != null) {
-            c.update.invoke();
-            Application.lateUpdate.invoke();
-            frameDuration = System.nanoTime() - frameStart;
-            renderDuration1 = c.prepareRender();
-        }
-        else {
-            Application.lateUpdate.invoke();
-            frameDuration = System.nanoTime() - frameStart;
-            renderDuration1 = 0;
-        }
+        runUpdate(c);
+        frameDuration = System.nanoTime() - frameStart;
+        renderDuration1 = c != null ? c.prepareRender() : 0;
     });
     LoopThread renderThread = new LoopThread("Render Thread", c -> {
         if(c != null) renderDuration2 = c.render();
@@ -41,19 +36,13 @@ public class ParallelLoopExecutor extends LoopExecutor {
         renderThread.start();
     }
 
-    private final Object lock = new Object();
-
     @Override
     public Bottleneck runIterationUntimed() {
 
-        startLoops = true;
-        synchronized(lock) {
-            lock.notifyAll();
-        }
-
-        while(!(updateThread.running && renderThread.running)) Thread.yield();
-        startLoops = false;
-        while(updateThread.running || renderThread.running) Thread.yield();
+        // Start the frame as soon as both threads are ready
+        handoff.arriveAndAwait();
+        // Wait for both threads to finish the frame
+        handoff.arriveAndAwait();
 
        return frameDuration < renderDuration1 + renderDuration2 ? Bottleneck.RENDERING : Bottleneck.UPDATE;
     }
@@ -63,9 +52,38 @@ public class ParallelLoopExecutor extends LoopExecutor {
         return frameDuration;
     }
 
+    @Override
+    public long getIdleDuration() {
+        return Math.min(updateThread.idleDuration, renderThread.idleDuration);
+    }
+
+    @Override
+    public long getUpdateWaitDuration() {
+        return updateThread.syncDuration;
+    }
+
+    @Override
+    public long getRenderWaitDuration() {
+        return renderThread.syncDuration;
+    }
+
+    @Override
+    public WaitPolicy getWaitPolicy() {
+        return handoff.getPolicy();
+    }
+
+    @Override
+    public void setWaitPolicy(WaitPolicy policy) {
+        handoff.setPolicy(policy);
+    }
+
     class LoopThread extends Thread {
 
-        volatile boolean running = false;
+        /**
+         * Time waited for the last frame to start, and time waited for the other
+         * thread to finish the last frame, in nanoseconds.
+         */
+        volatile long idleDuration = 0, syncDuration = 0;
         private final Consumer<Camera> loopAction;
 
         public LoopThread(String name, Consumer<Camera> loopAction) {
@@ -75,26 +93,14 @@ public class ParallelLoopExecutor extends LoopExecutor {
 
         @Override
         public void run() {
-            while (!startLoops) Thread.yield();
             //noinspection InfiniteLoopStatement
             while (true) {
-
-                running = true;
+                idleDuration = handoff.arriveAndAwait();
 
                 Camera camera = Camera.getActive();
                 loopAction.accept(camera);
 
-                while(startLoops) Thread.yield();
-
-                running = false;
-                while(!startLoops) try {
-                    synchronized(lock) {
-                        if(startLoops) break;
-                        lock.wait();
-                    }
-                } catch(InterruptedException e) {
-                    Console.error(e);
-                }
+                syncDuration = handoff.arriveAndAwait();
             }
         }
     }
@@ -0,0 +1,226 @@
+package com.github.rccookie.engine2d.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.github.rccookie.engine2d.Camera;
+import com.github.rccookie.engine2d.core.stats.Bottleneck;
+import com.github.rccookie.util.ArgumentOutOfRangeException;
+import com.github.rccookie.util.Console;
+
+/**
+ * A loop executor that overlaps the update of one frame with the rendering of the
+ * previous frames. The update runs on the executing thread and writes each frame into
+ * one of a ring of {@link FrameSnapshot}s, which are then rendered in order by a separate
+ * render thread. The render thread never holds a lock that the update thread needs, so
+ * if both update and rendering take long, the frame time gets close to the maximum of
+ * both rather than their sum.
+ *
+ * <p>The queue depth is the number of prepared frames that may be waiting to be rendered.
+ * A larger queue smooths out spikes in render time at the cost of latency. If frames
+ * are dropped, the update thread never waits for the render thread but reuses the oldest
+ * frame that has not been rendered yet once the queue is full, so only the most recent
+ * frames get rendered. Otherwise, every frame gets rendered and the update thread waits
+ * if the queue is full.</p>
+ *
+ * <p>The render thread is a daemon thread. Interrupting it stops it, and with it the
+ * rendering of this executor.</p>
+ */
+public class PipelinedLoopExecutor extends LoopExecutor {
+
+    /**
+     * Snapshots that are ready to be written.
+     */
+    private final BlockingQueue<FrameSnapshot> free;
+    /**
+     * Snapshots that are prepared and ready to be rendered, in order.
+     */
+    private final BlockingQueue<FrameSnapshot> ready;
+
+    /**
+     * The maximum number of prepared frames waiting to be rendered.
+     */
+    private final int queueDepth;
+    /**
+     * Whether to drop old frames rather than waiting for the render thread.
+     */
+    private final boolean dropFrames;
+
+    private volatile long frameDuration = 0;
+    private volatile long renderDuration = 0;
+    private volatile long updateWaitDuration = 0, renderWaitDuration = 0;
+
+
+    /**
+     * Creates a new pipelined loop executor with a queue depth of 1 that drops frames,
+     * which is equivalent to triple buffering.
+     */
+    public PipelinedLoopExecutor() {
+        this(1, true);
+    }
+
+    /**
+     * Creates a new pipelined loop executor.
+     *
+     * @param queueDepth The maximum number of prepared frames waiting to be rendered
+     * @param dropFrames Whether to drop the oldest waiting frame instead of waiting
+     *                   for the render thread if the queue is full
+     */
+    public PipelinedLoopExecutor(int queueDepth, boolean dropFrames) {
+        if(queueDepth < 1)
+            throw new ArgumentOutOfRangeException("Queue depth must be at least 1");
+        this.queueDepth = queueDepth;
+        this.dropFrames = dropFrames;
+
+        // One snapshot being written, one being rendered, and the ones in the queue
+        free = new ArrayBlockingQueue<>(queueDepth + 2);
+        ready = new ArrayBlockingQueue<>(queueDepth);
+        for(int i=0; i<queueDepth+2; i++)
+            free.add(new FrameSnapshot());
+
+        Thread renderThread = new Thread(this::runRenderLoop, "Render Thread");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+
+    @Override
+    protected Bottleneck runIterationUntimed() {
+        long frameStart = System.nanoTime();
+
+        updateTime();
+        Camera camera = Camera.getActive();
+        runUpdate(camera);
+
+        long waitStart = System.nanoTime();
+        FrameSnapshot snapshot = camera != null ? acquireSnapshot() : null;
+        long waitDuration = System.nanoTime() - waitStart;
+
+        if(snapshot != null) {
+            boolean submitted = false;
+            try {
+                camera.prepareRender(snapshot);
+                long submitStart = System.nanoTime();
+                submitted = submit(snapshot);
+                waitDuration += System.nanoTime() - submitStart;
+            } finally {
+                // Never lose a snapshot, otherwise the update thread would run out of them
+                if(!submitted) free.add(snapshot);
+            }
+        }
+        updateWaitDuration = waitDuration;
+
+        frameDuration = System.nanoTime() - frameStart - updateWaitDuration;
+
+        return frameDuration < renderDuration ? Bottleneck.RENDERING : Bottleneck.UPDATE;
+    }
+
+    /**
+     * Returns a snapshot to write the next frame into. If frames get dropped, this
+     * never waits for the render thread, and reuses the oldest waiting frame if the
+     * queue is full.
+     *
+     * @return A snapshot owned by the update thread, or {@code null} if interrupted
+     *         while waiting for one, in which case the interrupt flag stays set
+     */
+    private FrameSnapshot acquireSnapshot() {
+        if(!dropFrames) {
+            try {
+                return free.take();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        FrameSnapshot snapshot;
+        // Only the update thread adds to the queue, so it cannot fill up in between
+        if(ready.size() >= queueDepth && (snapshot = ready.poll()) != null)
+            return snapshot;
+        // There is always at least one snapshot either free or ready, the render
+        // thread may only be faster in taking the ready one
+        while((snapshot = free.poll()) == null && (snapshot = ready.poll()) == null)
+            Thread.onSpinWait();
+        return snapshot;
+    }
+
+    /**
+     * Queues the given prepared snapshot for rendering, waiting for space in the queue
+     * if frames do not get dropped.
+     *
+     * @param snapshot The snapshot to queue
+     * @return Whether the snapshot was queued, {@code false} if interrupted while
+     *         waiting, in which case the interrupt flag stays set
+     */
+    private boolean submit(FrameSnapshot snapshot) {
+        try {
+            ready.put(snapshot);
+            return true;
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Renders the prepared frames in order, until the render thread gets interrupted.
+     */
+    private void runRenderLoop() {
+        while(true) {
+            long waitStart = System.nanoTime();
+            FrameSnapshot snapshot;
+            try {
+                snapshot = ready.take();
+            } catch(InterruptedException e) {
+                return;
+            }
+            renderWaitDuration = System.nanoTime() - waitStart;
+
+            try {
+                renderDuration = snapshot.camera.render(snapshot);
+            } catch(Exception e) {
+                Console.error("Exception during rendering:");
+                Console.error(e);
+            }
+            free.add(snapshot);
+        }
+    }
+
+    /**
+     * Returns the maximum number of prepared frames waiting to be rendered.
+     *
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Returns whether old frames get dropped rather than waiting for the render
+     * thread.
+     *
+     * @return Whether frames get dropped
+     */
+    public boolean isDropFrames() {
+        return dropFrames;
+    }
+
+    @Override
+    public long getFrameDuration() {
+        return frameDuration;
+    }
+
+    @Override
+    public long getUpdateWaitDuration() {
+        return updateWaitDuration;
+    }
+
+    @Override
+    public long getRenderWaitDuration() {
+        return renderWaitDuration;
+    }
+
+    @Override
+    public boolean isParallel() {
+        return true;
+    }
+}
@@ -1,6 +1,5 @@
 package com.github.rccookie.engine2d.core;
 
-import com.github.rccookie.engine2d.Application;
 import com.github.rccookie.engine2d.Camera;
 import com.github.rccookie.engine2d.core.stats.Bottleneck;
 
@@ -17,12 +16,10 @@ public class SequentialLoopExecutor extends LoopExecutor {
         long frameStart = System.nanoTime();
 
         updateTime();
-        Application.earlyUpdate.invoke();
 
         Camera camera = Camera.getActive();
 
-        camera.update.invoke();
-        Application.lateUpdate.invoke();
+        runUpdate(camera);
 
         long renderStart = System.nanoTime();
         camera.prepareRender();
@@ -0,0 +1,49 @@
+package com.github.rccookie.engine2d.core;
+
+import com.github.rccookie.util.ArgumentOutOfRangeException;
+
+/**
+ * Describes how a loop thread waits for the other loop threads: it first busy-spins
+ * for a limited time, which gives the lowest latency for short waits, and then parks
+ * until it gets woken up, which does not use any cpu time.
+ */
+public final class WaitPolicy {
+
+    /**
+     * Parks immediately without spinning. Lowest cpu usage.
+     */
+    public static final WaitPolicy PARK = new WaitPolicy(0);
+
+    /**
+     * Spins for up to 50 microseconds before parking. Used by default.
+     */
+    public static final WaitPolicy DEFAULT = new WaitPolicy(50000);
+
+    /**
+     * Never parks. This uses up a full core per waiting thread and should only be
+     * used if latency is more important than anything else.
+     */
+    public static final WaitPolicy SPIN = new WaitPolicy(Long.MAX_VALUE);
+
+
+    /**
+     * The maximum time to spin before parking, in nanoseconds.
+     */
+    public final long spinNanos;
+
+    /**
+     * Creates a new wait policy.
+     *
+     * @param spinNanos The maximum time to spin before parking, in nanoseconds
+     */
+    public WaitPolicy(long spinNanos) {
+        if(spinNanos < 0)
+            throw new ArgumentOutOfRangeException("Negative spin duration");
+        this.spinNanos = spinNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "WaitPolicy{spinNanos=" + spinNanos + '}';
+    }
+}
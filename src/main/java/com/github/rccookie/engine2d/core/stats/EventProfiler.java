@@ -0,0 +1,230 @@
+package com.github.rccookie.engine2d.core.stats;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.rccookie.event.EventInvocationException;
+import com.github.rccookie.event.action.IAction;
+import com.github.rccookie.util.ModIterableArrayList;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Opt-in profiler that measures how long each action registered to the named events
+ * of the engine takes, aggregated by event name and listener class. This can be used
+ * to find out which listener is responsible if for example the update of a map gets
+ * slow.
+ *
+ * <p>While disabled, which is the default, the events only check a single flag and
+ * otherwise run as usual.</p>
+ *
+ * <p>Event names are grouped by their part before {@code " on "}, so that the events
+ * of different objects, named like {@code "GameObject.update on Player at [0|0]"}, are
+ * aggregated together. Listeners implemented as lambdas or method references are
+ * attributed to the class that declared them. If they are bound to an instance of
+ * that class, like {@code update.add(this::update)} in the constructor of a
+ * gameobject, they are attributed to the runtime class of that instance instead, so
+ * that subclasses overriding the method can be told apart. This is resolved only
+ * while profiling.</p>
+ */
+public enum EventProfiler {
+
+    ; // No instance
+
+    /**
+     * Whether profiling is enabled.
+     */
+    private static volatile boolean enabled = false;
+
+    /**
+     * Recorded stats by event name and listener class name.
+     */
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> STATS = new ConcurrentHashMap<>();
+
+    /**
+     * The field of a lambda or method reference class holding the captured instance
+     * of the declaring class, or {@code null} if there is none.
+     */
+    private static final ClassValue<Field> RECEIVERS = new ClassValue<>() {
+        @Override
+        protected Field computeValue(Class<?> type) {
+            String name = type.getName();
+            int lambda = name.indexOf("$$Lambda");
+            if(lambda == -1) return null;
+            String declaring = name.substring(0, lambda);
+            for(Field field : type.getDeclaredFields()) {
+                if(Modifier.isStatic(field.getModifiers()) || !field.getType().getName().equals(declaring)) continue;
+                try {
+                    field.setAccessible(true);
+                    return field;
+                } catch(RuntimeException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    };
+
+    /**
+     * Cached listener class names.
+     */
+    private static final ClassValue<String> LISTENER_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            String name = type.getName();
+            int lambda = name.indexOf("$$Lambda");
+            return lambda == -1 ? name : name.substring(0, lambda);
+        }
+    };
+
+
+    /**
+     * Returns whether profiling is currently enabled.
+     *
+     * @return Whether event profiling is enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables profiling. Stats that have been recorded so far are kept.
+     *
+     * @param enabled Whether to profile event listeners
+     */
+    public static void setEnabled(boolean enabled) {
+        EventProfiler.enabled = enabled;
+    }
+
+    /**
+     * Clears all recorded stats.
+     */
+    public static void reset() {
+        STATS.clear();
+    }
+
+    /**
+     * Returns the grouping name for the given event name.
+     *
+     * @param eventName The full name of an event
+     * @return The name to group the event's stats by
+     */
+    public static String groupName(String eventName) {
+        int index = eventName.indexOf(" on ");
+        return index == -1 ? eventName : eventName.substring(0, index);
+    }
+
+    /**
+     * Runs the given actions of a non-consumable event with the given parameters and
+     * records the duration of each action. Exceptions in the actions do not stop the
+     * other actions from running. Internal method.
+     *
+     * @param eventName The group name of the event, see {@link #groupName(String)}
+     * @param actions The actions to run
+     * @param params The parameters for the actions
+     * @return The exceptions that occurred, or {@code null}
+     */
+    @Nullable
+    public static EventInvocationException invoke(String eventName, Collection<? extends IAction> actions, Object... params) {
+        ConcurrentHashMap<String, Entry> eventStats = STATS.computeIfAbsent(eventName, $ -> new ConcurrentHashMap<>());
+        EventInvocationException exception = null;
+        // Copy only if actions removed during the invocation would break the iteration
+        Iterable<? extends IAction> iterable = actions instanceof ModIterableArrayList ? actions : Arrays.asList(actions.toArray(new IAction[0]));
+        for(IAction action : iterable) {
+            long start = System.nanoTime();
+            try {
+                action.run(params);
+            } catch(Exception e) {
+                if(exception == null)
+                    exception = new EventInvocationException(e);
+                else exception.addSuppressed(e);
+            }
+            long duration = System.nanoTime() - start;
+            eventStats.computeIfAbsent(listenerName(action), $ -> new Entry()).record(duration);
+        }
+        return exception;
+    }
+
+    /**
+     * Returns the name of the class to attribute the given action to.
+     *
+     * @param action The action to get the listener name of
+     * @return The runtime class of the instance the action is bound to, if it is a
+     *         lambda or method reference bound to an instance of its declaring class,
+     *         otherwise the class that declared the action
+     */
+    private static String listenerName(IAction action) {
+        Field receiver = RECEIVERS.get(action.getClass());
+        if(receiver != null) {
+            try {
+                Object instance = receiver.get(action);
+                if(instance != null) return LISTENER_NAMES.get(instance.getClass());
+            } catch(IllegalAccessException ignored) { }
+        }
+        return LISTENER_NAMES.get(action.getClass());
+    }
+
+    /**
+     * Returns the stats of all listeners recorded so far, in no particular order.
+     *
+     * @return The recorded listener stats
+     */
+    public static List<ListenerStats> getStats() {
+        List<ListenerStats> stats = new ArrayList<>();
+        STATS.forEach((event, listeners) -> listeners.forEach((listener, entry) ->
+                stats.add(new ListenerStats(event, listener, entry.count.sum(),
+                        entry.totalNanos.sum() / 1000000000f, entry.maxNanos.get() / 1000000000f))));
+        return stats;
+    }
+
+    /**
+     * Returns the stats of the {@code n} listeners with the highest total duration,
+     * hottest first.
+     *
+     * @param n The maximum number of listeners to return
+     * @return The hottest listeners
+     */
+    public static List<ListenerStats> getHotListeners(int n) {
+        List<ListenerStats> stats = getStats();
+        stats.sort(Comparator.comparingDouble((ListenerStats s) -> s.totalDuration).reversed());
+        return stats.subList(0, Math.min(n, stats.size()));
+    }
+
+    /**
+     * Creates a human-readable report of the {@code n} hottest listeners.
+     *
+     * @param n The maximum number of listeners to include
+     * @return The report
+     */
+    public static String report(int n) {
+        StringBuilder report = new StringBuilder("Top ").append(n).append(" hot listeners:");
+        for(ListenerStats s : getHotListeners(n))
+            report.append("\n  ").append(s);
+        return report.toString();
+    }
+
+
+
+    /**
+     * Mutable stats of a single listener.
+     */
+    private static final class Entry {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+    }
+}
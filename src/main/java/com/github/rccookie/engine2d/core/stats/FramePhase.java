@@ -0,0 +1,22 @@
+package com.github.rccookie.engine2d.core.stats;
+
+public enum FramePhase {
+    FRAME("frame"),
+    UPDATE("update"),
+    PHYSICS("physics"),
+    UI_UPDATE("ui update"),
+    RENDER_PREP("render prep"),
+    RENDER("render"),
+    PACING_ERROR("pacing error");
+
+    private final String description;
+
+    FramePhase(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
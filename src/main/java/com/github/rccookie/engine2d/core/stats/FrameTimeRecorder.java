@@ -0,0 +1,137 @@
+package com.github.rccookie.engine2d.core.stats;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.github.rccookie.util.ArgumentOutOfRangeException;
+
+/**
+ * Records the durations of the different frame phases over a sliding window of the
+ * most recent samples, to measure not only the average but also the tail latency that
+ * causes visible stutter.
+ *
+ * <p>Recording is lock-free and does not allocate. Each phase is stored in its own
+ * ring buffer and may only be recorded by one thread at a time, but different phases
+ * may be recorded by different threads, and the percentiles can be calculated from
+ * any thread.</p>
+ */
+public final class FrameTimeRecorder {
+
+    /**
+     * The default number of samples per phase.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 512;
+
+    /**
+     * Ring buffers of the durations of all phases, in nanoseconds, one after the
+     * other. Atomic so that readers never see a partially written sample.
+     */
+    private final AtomicLongArray samples;
+
+    /**
+     * Total number of samples recorded per phase.
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * The number of samples kept per phase.
+     */
+    private final int windowSize;
+
+
+    /**
+     * Creates a new frame time recorder with the default window size.
+     */
+    public FrameTimeRecorder() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates a new frame time recorder.
+     *
+     * @param windowSize The number of most recent samples to keep per phase
+     */
+    public FrameTimeRecorder(int windowSize) {
+        if(windowSize <= 0)
+            throw new ArgumentOutOfRangeException("Non-positive window size");
+        this.windowSize = windowSize;
+        int phaseCount = FramePhase.values().length;
+        samples = new AtomicLongArray(phaseCount * windowSize);
+        counts = new AtomicLongArray(phaseCount);
+    }
+
+
+    /**
+     * Records a sample for the given phase.
+     *
+     * @param phase The phase the duration was measured for
+     * @param nanos The duration of the phase, in nanoseconds
+     */
+    public void record(FramePhase phase, long nanos) {
+        int p = phase.ordinal();
+        long count = counts.get(p);
+        samples.lazySet(p * windowSize + (int) (count % windowSize), nanos);
+        // Publish the sample, ordered after the write above
+        counts.lazySet(p, count + 1);
+    }
+
+    /**
+     * Calculates the percentiles of the given phase over the current window. If the
+     * phase gets recorded concurrently, samples written while copying the window may
+     * already be included in place of the oldest ones; every value read is a
+     * complete, published sample.
+     *
+     * @param phase The phase to get the percentiles of
+     * @return The percentiles of that phase
+     */
+    public Percentiles getPercentiles(FramePhase phase) {
+        int p = phase.ordinal();
+        // Only the first n slots are read, all of them were published by the count
+        int n = (int) Math.min(counts.get(p), windowSize);
+        if(n == 0) return Percentiles.EMPTY;
+
+        long[] sorted = new long[n];
+        for(int i=0, offset=p*windowSize; i<n; i++)
+            sorted[i] = samples.get(offset + i);
+        Arrays.sort(sorted);
+
+        long sum = 0;
+        for(long s : sorted) sum += s;
+
+        return new Percentiles(
+                percentile(sorted, 0.5f),
+                percentile(sorted, 0.95f),
+                percentile(sorted, 0.99f),
+                sorted[n-1] / 1000000000f,
+                sum / (n * 1000000000f),
+                n
+        );
+    }
+
+    /**
+     * Returns the total number of samples ever recorded for the given phase.
+     *
+     * @param phase The phase to get the sample count of
+     * @return The number of recorded samples
+     */
+    public long getSampleCount(FramePhase phase) {
+        return counts.get(phase.ordinal());
+    }
+
+    /**
+     * Returns the number of samples kept per phase.
+     *
+     * @return The window size
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Returns the nearest-rank percentile of the given sorted samples, in seconds.
+     */
+    private static float percentile(long[] sorted, float q) {
+        int index = Math.max(0, (int) Math.ceil(q * sorted.length) - 1);
+        return sorted[index] / 1000000000f;
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.rccookie.engine2d.core.stats;
+
+/**
+ * Aggregated cost of a listener class on a named event, as recorded by the
+ * {@link EventProfiler}. All durations are in seconds.
+ */
+public final class ListenerStats {
+
+    public final String eventName;
+
+    public final String listenerClass;
+
+    public final long invocations;
+
+    public final float totalDuration;
+
+    public final float maxDuration;
+
+    public final float meanDuration;
+
+    public ListenerStats(String eventName, String listenerClass, long invocations, float totalDuration, float maxDuration) {
+        this.eventName = eventName;
+        this.listenerClass = listenerClass;
+        this.invocations = invocations;
+        this.totalDuration = totalDuration;
+        this.maxDuration = maxDuration;
+        this.meanDuration = invocations == 0 ? 0 : totalDuration / invocations;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s <- %s: %d calls, %.3fms total, %.3fms mean, %.3fms max",
+                eventName, listenerClass, invocations, totalDuration * 1000, meanDuration * 1000, maxDuration * 1000);
+    }
+}
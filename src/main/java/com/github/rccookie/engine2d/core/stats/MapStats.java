@@ -0,0 +1,23 @@
+package com.github.rccookie.engine2d.core.stats;
+
+/**
+ * Performance stats of a single map, as stepped by a
+ * {@link com.github.rccookie.engine2d.MapScheduler}. All durations are in seconds.
+ */
+public final class MapStats {
+
+    public final float stepDuration;
+
+    public final float updateDuration;
+
+    public final float physicsDuration;
+
+    public final int objectCount;
+
+    public MapStats(float stepDuration, float updateDuration, float physicsDuration, int objectCount) {
+        this.stepDuration = stepDuration;
+        this.updateDuration = updateDuration;
+        this.physicsDuration = physicsDuration;
+        this.objectCount = objectCount;
+    }
+}
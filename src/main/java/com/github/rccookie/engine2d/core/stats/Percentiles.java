@@ -0,0 +1,39 @@
+package com.github.rccookie.engine2d.core.stats;
+
+/**
+ * Distribution of the durations of a frame phase over a window of recent frames.
+ * All durations are in seconds.
+ */
+public final class Percentiles {
+
+    /**
+     * Percentiles without any samples.
+     */
+    public static final Percentiles EMPTY = new Percentiles(0, 0, 0, 0, 0, 0);
+
+    public final float p50;
+
+    public final float p95;
+
+    public final float p99;
+
+    public final float max;
+
+    public final float mean;
+
+    public final int sampleCount;
+
+    public Percentiles(float p50, float p95, float p99, float max, float mean, int sampleCount) {
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+        this.mean = mean;
+        this.sampleCount = sampleCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("p50=%.2fms, p95=%.2fms, p99=%.2fms, max=%.2fms", p50 * 1000, p95 * 1000, p99 * 1000, max * 1000);
+    }
+}
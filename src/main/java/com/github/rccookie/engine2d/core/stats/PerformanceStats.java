@@ -20,12 +20,36 @@ public final class PerformanceStats {
 
     public final float otherDuration;
 
+    public final float idleDuration;
+
+    public final float updateWaitDuration;
+
+    public final float renderWaitDuration;
+
+    public final float pacingError;
+
+    public final Percentiles frameTimes;
+
+    public final Percentiles updateTimes;
+
+    public final Percentiles physicsTimes;
+
+    public final Percentiles uiUpdateTimes;
+
+    public final Percentiles renderPrepTimes;
+
+    public final Percentiles renderTimes;
+
+    public final Percentiles pacingErrors;
+
     public final Bottleneck bottleneck;
 
     public final boolean parallel;
 
     public PerformanceStats(float frameDuration, float renderPrepDuration, float renderDuration, int drawCount, int poolSize,
-                            float updateDuration,float physicsDuration, float uiUpdateDuration, Bottleneck bottleneck, boolean parallel) {
+                            float updateDuration,float physicsDuration, float uiUpdateDuration, float idleDuration,
+                            float updateWaitDuration, float renderWaitDuration, float pacingError, FrameTimeRecorder frameTimeRecorder,
+                            Bottleneck bottleneck, boolean parallel) {
         this.frameDuration = frameDuration;
         this.renderPrepDuration = renderPrepDuration;
         this.renderDuration = renderDuration;
@@ -35,6 +59,17 @@ public final class PerformanceStats {
         this.physicsDuration = physicsDuration;
         this.uiUpdateDuration = uiUpdateDuration;
         this.otherDuration = frameDuration - (updateDuration + physicsDuration + uiUpdateDuration);
+        this.idleDuration = idleDuration;
+        this.updateWaitDuration = updateWaitDuration;
+        this.renderWaitDuration = renderWaitDuration;
+        this.pacingError = pacingError;
+        this.frameTimes = frameTimeRecorder.getPercentiles(FramePhase.FRAME);
+        this.updateTimes = frameTimeRecorder.getPercentiles(FramePhase.UPDATE);
+        this.physicsTimes = frameTimeRecorder.getPercentiles(FramePhase.PHYSICS);
+        this.uiUpdateTimes = frameTimeRecorder.getPercentiles(FramePhase.UI_UPDATE);
+        this.renderPrepTimes = frameTimeRecorder.getPercentiles(FramePhase.RENDER_PREP);
+        this.renderTimes = frameTimeRecorder.getPercentiles(FramePhase.RENDER);
+        this.pacingErrors = frameTimeRecorder.getPercentiles(FramePhase.PACING_ERROR);
         this.bottleneck = bottleneck;
         this.parallel = parallel;
     }
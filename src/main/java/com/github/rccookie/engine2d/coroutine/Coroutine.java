@@ -25,16 +25,23 @@ public class Coroutine<T> {
     private final ValueLoopTask<? extends T>/*Consumer<? super ReturnCallback<? super T>>*/ task;
     private final Future<T> result = new NoWaitFutureImpl<>();
     private final BooleanSupplier isExecutionPossible;
+    /**
+     * Whether the {@link LocalExecutionManager} this coroutine was started by has
+     * cancelled it. Shared by all coroutines of the same chain.
+     */
+    private final BooleanSupplier isCanceled;
 
-    Coroutine(BooleanSupplier isExecutionPossible) {
+    Coroutine(BooleanSupplier isExecutionPossible, BooleanSupplier isCanceled) {
         task = $ -> { throw new AssertionError(); };
         this.isExecutionPossible = isExecutionPossible;
+        this.isCanceled = isCanceled;
         ((FutureImpl<?>) result).complete(null);
     }
 
     @SuppressWarnings("unchecked")
     private <U,V> Coroutine(Coroutine<U> c1, Coroutine<V> c2) {
         isExecutionPossible = c1.isExecutionPossible;
+        isCanceled = c1.isCanceled;
         IntWrapper doneCount = new IntWrapper();
         task = r -> r._return((T) new Tuple2<>(c1.result(), c2.result()));
         c1.listen(() -> {
@@ -61,6 +68,7 @@ public class Coroutine<T> {
 
     private <P> Coroutine(Coroutine<P> previous, ParamValueLoopTask<? super P, ? extends T> subTask) {//BiConsumer<? super P, ? super ReturnCallback<T>> subAction) {
         isExecutionPossible = previous.isExecutionPossible;
+        isCanceled = previous.isCanceled;
         task = r -> subTask.runIteration(previous.result(), r);
         previous.listen(() -> {
             synchronized(Execute.COROUTINES) {
@@ -91,6 +99,14 @@ public class Coroutine<T> {
 
     private void run(ReturnCallback<? super T> onReturn) {
         if(!isRunning()) throw new IllegalStateException("Coroutine already done");
+        if(isCanceled.getAsBoolean()) {
+            // Following coroutines of the chain never get scheduled
+            stop();
+            synchronized(Execute.COROUTINES) {
+                Execute.COROUTINES.remove(this);
+            }
+            return;
+        }
         if(!isExecutionPossible.getAsBoolean()) return;
         try {
             task.runIteration(onReturn);
@@ -8,6 +8,11 @@ import com.github.rccookie.util.Future;
 public class LocalExecutionManager {
 
     private final BooleanSupplier isExecutionPossible;
+    /**
+     * Incremented by {@link #cancelAll()}. Coroutines started before the current
+     * generation are cancelled.
+     */
+    private volatile int generation = 0;
 
     public LocalExecutionManager(BooleanSupplier isExecutionPossible) {
         this.isExecutionPossible = isExecutionPossible;
@@ -16,7 +21,18 @@ public class LocalExecutionManager {
 
 
     public Coroutine<Void> coroutine() {
-        return new Coroutine<>(isExecutionPossible);
+        int startGeneration = generation;
+        return new Coroutine<>(isExecutionPossible, () -> generation != startGeneration);
+    }
+
+    /**
+     * Cancels all coroutines and delayed or repeated tasks started by this execution
+     * manager so far, including ones that are currently paused because execution is
+     * not possible. Coroutines started afterwards are not affected. Cancelled
+     * coroutines are stopped the next time they would be run.
+     */
+    public void cancelAll() {
+        generation++;
     }
 
     public <T> Coroutine<T> coroutine(T startValue) {
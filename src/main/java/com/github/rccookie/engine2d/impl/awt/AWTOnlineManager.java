@@ -13,7 +13,8 @@ import com.github.rccookie.util.ThreadedFutureImpl;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * AWT implementation of an {@link OnlineManager}.
+ * AWT implementation of an {@link OnlineManager}. Uses no AWT classes, so it
+ * is also used by the headless implementation.
  */
 public class AWTOnlineManager implements OnlineManager {
 
@@ -0,0 +1,55 @@
+package com.github.rccookie.engine2d.impl.headless;
+
+import com.github.rccookie.engine2d.core.DrawObject;
+import com.github.rccookie.engine2d.image.Color;
+import com.github.rccookie.engine2d.impl.Display;
+import com.github.rccookie.geometry.performance.int2;
+
+/**
+ * Headless implementation of {@link Display} that discards everything drawn.
+ */
+public class HeadlessDisplay implements Display {
+
+    /**
+     * Currently set resolution.
+     */
+    private final int2 resolution = Display.DEFAULT_RESOLUTION.clone();
+
+    /**
+     * Number of frames drawn so far.
+     */
+    private volatile long frameCount = 0;
+
+
+    @Override
+    public void draw(DrawObject[] objects, Color background) {
+        frameCount++;
+    }
+
+    @Override
+    public void setResolution(int2 resolution) {
+        this.resolution.set(resolution);
+    }
+
+    @Override
+    public void allowResizingChanged(boolean allowed) {
+    }
+
+    /**
+     * Returns the currently set resolution.
+     *
+     * @return The display resolution
+     */
+    public int2 getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Returns the number of frames that have been drawn onto this display.
+     *
+     * @return The number of drawn frames
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+}
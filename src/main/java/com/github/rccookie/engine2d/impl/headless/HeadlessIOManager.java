@@ -0,0 +1,81 @@
+package com.github.rccookie.engine2d.impl.headless;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import com.github.rccookie.engine2d.impl.IOManager;
+import com.github.rccookie.engine2d.util.RuntimeIOException;
+import com.github.rccookie.util.Arguments;
+import com.github.rccookie.util.Future;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Headless implementation of an {@link IOManager} that reads resources from a
+ * directory in the file system. The clipboard is only kept in memory.
+ */
+public class HeadlessIOManager implements IOManager {
+
+    /**
+     * The resources directory.
+     */
+    private final Path root;
+
+    /**
+     * The clipboard content.
+     */
+    private volatile String clipboard = "";
+
+
+    /**
+     * Creates a new headless io manager reading from the given resources directory.
+     *
+     * @param root The resources directory
+     */
+    public HeadlessIOManager(@NotNull Path root) {
+        this.root = Arguments.checkNull(root, "root");
+    }
+
+
+    @Override
+    public String read(String file) throws RuntimeIOException {
+        try {
+            return Files.readString(root.resolve(file));
+        } catch(Exception e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    @Override
+    public String @NotNull [] listFiles() {
+        if(!Files.isDirectory(root)) return new String[0];
+        try(Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile)
+                    .map(p -> "resources/" + root.relativize(p).toString().replace('\\', '/'))
+                    .toArray(String[]::new);
+        } catch(IOException e) {
+            throw new RuntimeIOException(e);
+        }
+    }
+
+    @Override
+    public Future<String> getClipboard() {
+        return Future.of(clipboard);
+    }
+
+    @Override
+    public void setClipboard(@NotNull String content) {
+        clipboard = Arguments.checkNull(content, "content");
+    }
+
+    /**
+     * Returns the resources directory.
+     *
+     * @return The resources directory
+     */
+    public Path getRoot() {
+        return root;
+    }
+}
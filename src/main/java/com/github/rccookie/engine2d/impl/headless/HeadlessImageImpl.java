@@ -0,0 +1,223 @@
+package com.github.rccookie.engine2d.impl.headless;
+
+import java.util.Arrays;
+
+import com.github.rccookie.engine2d.image.Color;
+import com.github.rccookie.engine2d.image.Image;
+import com.github.rccookie.engine2d.impl.ImageImpl;
+import com.github.rccookie.geometry.performance.int2;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+/**
+ * In-memory implementation of {@link ImageImpl} backed by an ARGB pixel array. Shapes
+ * are drawn without antialiasing.
+ */
+public class HeadlessImageImpl implements ImageImpl {
+
+    /**
+     * The pixels in ARGB format, row by row.
+     */
+    final int[] pixels;
+    /**
+     * The image size.
+     */
+    final int2 size;
+    /**
+     * Transparency of the image.
+     */
+    int transparency = 255;
+
+
+    /**
+     * Creates a new, fully transparent image.
+     *
+     * @param size The size of the image
+     */
+    public HeadlessImageImpl(int2 size) {
+        this(size.clone(), new int[size.x * size.y]);
+    }
+
+    /**
+     * Creates a new image backed by the given pixels.
+     *
+     * @param size The size of the image
+     * @param pixels The ARGB pixels, row by row
+     */
+    HeadlessImageImpl(int2 size, int[] pixels) {
+        this.size = size;
+        this.pixels = pixels;
+    }
+
+
+    @Override
+    public @NotNull ImageImpl clone() {
+        HeadlessImageImpl clone = new HeadlessImageImpl(size.clone(), pixels.clone());
+        clone.transparency = transparency;
+        return clone;
+    }
+
+    @Override
+    public @Range(from = 0, to = 255) int getAlpha() {
+        return transparency;
+    }
+
+    @Override
+    public void setAlpha(@Range(from = 0, to = 255) int a) {
+        transparency = a;
+    }
+
+    @Override
+    public void fillRect(int2 topLeft, int2 size, Color color) {
+        int minX = Math.max(0, topLeft.x), maxX = Math.min(this.size.x, topLeft.x + size.x);
+        int minY = Math.max(0, topLeft.y), maxY = Math.min(this.size.y, topLeft.y + size.y);
+        for(int y=minY; y<maxY; y++) for(int x=minX; x<maxX; x++)
+            blend(x, y, color.rgb);
+    }
+
+    @Override
+    public void drawRect(int2 topLeft, int2 size, Color color) {
+        int x1 = topLeft.x + size.x - 1, y1 = topLeft.y + size.y - 1;
+        line(topLeft.x, topLeft.y, x1, topLeft.y, color.rgb);
+        line(topLeft.x, y1, x1, y1, color.rgb);
+        line(topLeft.x, topLeft.y + 1, topLeft.x, y1 - 1, color.rgb);
+        line(x1, topLeft.y + 1, x1, y1 - 1, color.rgb);
+    }
+
+    @Override
+    public void fillOval(int2 topLeft, int2 size, Color color) {
+        oval(topLeft, size, color.rgb, true);
+    }
+
+    @Override
+    public void drawOval(int2 topLeft, int2 size, Color color) {
+        oval(topLeft, size, color.rgb, false);
+    }
+
+    @Override
+    public void drawLine(int2 from, int2 to, Color color) {
+        line(from.x, from.y, to.x, to.y, color.rgb);
+    }
+
+    @Override
+    public void setPixel(int2 location, Color color) {
+        checkBounds(location.x, location.y);
+        pixels[location.y * size.x + location.x] = color.rgb;
+    }
+
+    @Override
+    public Color getPixel(int2 location) {
+        checkBounds(location.x, location.y);
+        return new Color(pixels[location.y * size.x + location.x], true);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(pixels, 0);
+    }
+
+    @Override
+    public void drawImage(ImageImpl image, int2 topLeft) {
+        HeadlessImageImpl impl = (HeadlessImageImpl) image;
+        int minX = Math.max(0, topLeft.x), maxX = Math.min(size.x, topLeft.x + impl.size.x);
+        int minY = Math.max(0, topLeft.y), maxY = Math.min(size.y, topLeft.y + impl.size.y);
+        for(int y=minY; y<maxY; y++) for(int x=minX; x<maxX; x++) {
+            int argb = impl.pixels[(y - topLeft.y) * impl.size.x + x - topLeft.x];
+            if(impl.transparency != 255)
+                argb = (argb & 0xFFFFFF) | ((argb >>> 24) * impl.transparency / 255) << 24;
+            blend(x, y, argb);
+        }
+    }
+
+    @Override
+    public int2 getSize() {
+        return size;
+    }
+
+    @Override
+    public ImageImpl scaled(int2 newSize, Image.AntialiasingMode aaMode) {
+        // Nearest neighbor only, there is nobody looking at the result anyways
+        int[] scaled = new int[newSize.x * newSize.y];
+        for(int y=0; y<newSize.y; y++) {
+            int srcY = y * size.y / newSize.y;
+            for(int x=0; x<newSize.x; x++)
+                scaled[y * newSize.x + x] = pixels[srcY * size.x + x * size.x / newSize.x];
+        }
+        return new HeadlessImageImpl(newSize.clone(), scaled);
+    }
+
+
+
+    /**
+     * Draws the given color over the pixel at the given location, if it is
+     * within the image.
+     *
+     * @param x The x coordinate of the pixel
+     * @param y The y coordinate of the pixel
+     * @param argb The color to draw
+     */
+    private void blend(int x, int y, int argb) {
+        if(x < 0 || y < 0 || x >= size.x || y >= size.y) return;
+        int srcA = argb >>> 24;
+        if(srcA == 0) return;
+        int i = y * size.x + x;
+        if(srcA == 255) {
+            pixels[i] = argb;
+            return;
+        }
+        int dst = pixels[i], dstA = dst >>> 24;
+        int outA = srcA + dstA * (255 - srcA) / 255;
+        if(outA == 0) {
+            pixels[i] = 0;
+            return;
+        }
+        int out = outA << 24;
+        for(int shift=0; shift<24; shift+=8) {
+            int s = (argb >> shift) & 0xFF, d = (dst >> shift) & 0xFF;
+            out |= ((s * srcA + d * dstA * (255 - srcA) / 255) / outA) << shift;
+        }
+        pixels[i] = out;
+    }
+
+    /**
+     * Draws a line using Bresenham's algorithm.
+     */
+    private void line(int x0, int y0, int x1, int y1, int argb) {
+        int dx = Math.abs(x1 - x0), dy = -Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1, sy = y0 < y1 ? 1 : -1;
+        int err = dx + dy;
+        while(true) {
+            blend(x0, y0, argb);
+            if(x0 == x1 && y0 == y1) return;
+            int e2 = 2 * err;
+            if(e2 >= dy) { err += dy; x0 += sx; }
+            if(e2 <= dx) { err += dx; y0 += sy; }
+        }
+    }
+
+    /**
+     * Draws or fills the oval inscribed into the given rectangle.
+     */
+    private void oval(int2 topLeft, int2 size, int argb, boolean fill) {
+        float rx = size.x / 2f, ry = size.y / 2f;
+        if(rx <= 0 || ry <= 0) return;
+        float cx = topLeft.x + rx, cy = topLeft.y + ry;
+        for(int y=topLeft.y; y<topLeft.y+size.y; y++) for(int x=topLeft.x; x<topLeft.x+size.x; x++) {
+            float nx = (x + 0.5f - cx) / rx, ny = (y + 0.5f - cy) / ry;
+            float d = nx * nx + ny * ny;
+            if(d > 1) continue;
+            if(!fill) {
+                // Only the outermost pixel ring
+                float ix = (Math.abs(x + 0.5f - cx) + 1) / rx, iy = (Math.abs(y + 0.5f - cy) + 1) / ry;
+                if(ix * ix + ny * ny <= 1 && nx * nx + iy * iy <= 1) continue;
+            }
+            blend(x, y, argb);
+        }
+    }
+
+    private void checkBounds(int x, int y) {
+        if(x < 0 || y < 0 || x >= size.x || y >= size.y)
+            throw new IndexOutOfBoundsException("Pixel [" + x + "|" + y + "] is outside of the image of size " + size);
+    }
+}
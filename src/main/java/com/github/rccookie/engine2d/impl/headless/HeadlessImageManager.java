@@ -0,0 +1,85 @@
+package com.github.rccookie.engine2d.impl.headless;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import com.github.rccookie.engine2d.image.Color;
+import com.github.rccookie.engine2d.image.Font;
+import com.github.rccookie.engine2d.impl.ImageImpl;
+import com.github.rccookie.engine2d.impl.ImageManager;
+import com.github.rccookie.engine2d.util.RuntimeIOException;
+import com.github.rccookie.geometry.performance.int2;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Factory for {@link HeadlessImageImpl}s. Text is not actually rendered, but the
+ * resulting images have plausible sizes so that layouts behave similar to other
+ * implementations.
+ */
+public class HeadlessImageManager implements ImageManager {
+
+    /**
+     * Average width of a character relative to the font size.
+     */
+    private static final float CHAR_WIDTH = 0.55f;
+
+
+    @Override
+    public @NotNull ImageImpl createNew(@NotNull int2 size) {
+        return new HeadlessImageImpl(size);
+    }
+
+    @Override
+    public @NotNull ImageImpl createNew(@NotNull String file) throws RuntimeIOException {
+        BufferedImage loaded;
+        try(InputStream in = getClass().getClassLoader().getResourceAsStream(file)) {
+            if(in == null) throw new RuntimeIOException("Resource not found: " + file);
+            loaded = ImageIO.read(in);
+        } catch(IOException e) { throw new RuntimeIOException(e); }
+        if(loaded == null) throw new RuntimeIOException("Unsupported image format: " + file);
+
+        int2 size = new int2(loaded.getWidth(), loaded.getHeight());
+        int[] pixels = loaded.getRGB(0, 0, size.x, size.y, null, 0, size.x);
+        return new HeadlessImageImpl(size, pixels);
+    }
+
+    @Override
+    public @NotNull ImageImpl createText(@NotNull String text, int size, @NotNull Color color) {
+        String[] lines = text.split("\n", -1);
+        int width = 1;
+        for(String line : lines)
+            width = Math.max(width, (int) Math.ceil(line.length() * size * CHAR_WIDTH));
+        return new HeadlessImageImpl(new int2(width, size * lines.length));
+    }
+
+    @Override
+    public @NotNull ImageImpl createCharacter(char character, @NotNull Font font, @NotNull Color color) {
+        if(Character.isISOControl(character))
+            return new ImageImpl.ZeroSizeImageImpl(new int2(0, font.size));
+        return new HeadlessImageImpl(new int2(Math.max(1, (int) Math.ceil(font.size * CHAR_WIDTH)), font.size));
+    }
+
+    @Override
+    public @NotNull String getDefaultFont() {
+        return "Headless";
+    }
+
+    @Override
+    public @NotNull String getDefaultSerifFont() {
+        return "Headless Serif";
+    }
+
+    @Override
+    public @NotNull String getDefaultMonospaceFont() {
+        return "Headless Monospace";
+    }
+
+    @Override
+    public boolean isFontSupported(String font) {
+        return true;
+    }
+}
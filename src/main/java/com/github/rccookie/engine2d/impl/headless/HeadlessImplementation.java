@@ -0,0 +1,152 @@
+package com.github.rccookie.engine2d.impl.headless;
+
+import java.nio.file.Path;
+
+import com.github.rccookie.engine2d.Properties;
+import com.github.rccookie.engine2d.impl.Display;
+import com.github.rccookie.engine2d.impl.DisplayController;
+import com.github.rccookie.engine2d.impl.IOManager;
+import com.github.rccookie.engine2d.impl.ImageManager;
+import com.github.rccookie.engine2d.impl.Implementation;
+import com.github.rccookie.engine2d.impl.InputAdapter;
+import com.github.rccookie.engine2d.impl.OnlineManager;
+import com.github.rccookie.engine2d.impl.awt.AWTOnlineManager;
+
+/**
+ * Engine2D implementation without any display or input, intended for running
+ * the simulation on servers or in automated tests. Images are kept in memory
+ * only and rendering does not produce any output. Usually used together with a
+ * {@link HeadlessLoopExecutor}.
+ */
+public class HeadlessImplementation implements Implementation {
+
+    /**
+     * The image factory instance.
+     */
+    private final ImageManager imageFactory = new HeadlessImageManager();
+    /**
+     * The display instance.
+     */
+    private final Display display = new HeadlessDisplay();
+    /**
+     * The input adapter instance.
+     */
+    private final InputAdapter inputAdapter = new HeadlessInputAdapter();
+    /**
+     * The online manager instance. The AWT one does not depend on AWT.
+     */
+    private final OnlineManager onlineManager = new AWTOnlineManager();
+    /**
+     * The file manager instance.
+     */
+    private final IOManager ioManager;
+
+
+    /**
+     * The thread set as main thread.
+     */
+    private Thread mainThread = null;
+
+
+    /**
+     * Creates a new headless implementation that reads its resources from the
+     * 'resources' directory in the working directory.
+     */
+    public HeadlessImplementation() {
+        this(Path.of("resources"));
+    }
+
+    /**
+     * Creates a new headless implementation that reads its resources from the
+     * given directory.
+     *
+     * @param resources The resources directory
+     */
+    public HeadlessImplementation(Path resources) {
+        ioManager = new HeadlessIOManager(resources);
+    }
+
+    @Override
+    public void setDisplayController(DisplayController displayController) {
+    }
+
+    @Override
+    public ImageManager getImageFactory() {
+        return imageFactory;
+    }
+
+    @Override
+    public Display getDisplay() {
+        return display;
+    }
+
+    @Override
+    public InputAdapter getInputAdapter() {
+        return inputAdapter;
+    }
+
+    @Override
+    public OnlineManager getOnlineManager() {
+        return onlineManager;
+    }
+
+    @Override
+    public IOManager getIOManager() {
+        return ioManager;
+    }
+
+    @Override
+    public boolean supportsMultithreading() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsNativeIO() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsAWT() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsSleeping() {
+        return true;
+    }
+
+    @Override
+    public boolean hasExternalUpdateLoop() {
+        return false;
+    }
+
+    @Override
+    public void sleep(long millis, int nanos) {
+        try {
+            Thread.sleep(millis, nanos);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void runExternalUpdateLoop() throws UnsupportedOperationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setMainThread() throws IllegalStateException {
+        if(mainThread != null) throw new IllegalStateException("Main thread already set");
+        mainThread = Thread.currentThread();
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return Thread.currentThread() == mainThread;
+    }
+
+    @Override
+    public void initProperties(Properties properties) {
+        properties.set("headless");
+    }
+}
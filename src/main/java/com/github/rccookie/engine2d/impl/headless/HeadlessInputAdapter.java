@@ -0,0 +1,36 @@
+package com.github.rccookie.engine2d.impl.headless;
+
+import com.github.rccookie.engine2d.impl.InputAdapter;
+import com.github.rccookie.engine2d.impl.MouseData;
+import com.github.rccookie.event.action.BiParamAction;
+import com.github.rccookie.event.action.ParamAction;
+import com.github.rccookie.geometry.performance.int2;
+
+/**
+ * Headless implementation of an {@link InputAdapter} that never receives any input.
+ */
+public class HeadlessInputAdapter implements InputAdapter {
+
+    @Override
+    public void attachKeyEvent(BiParamAction<String, Boolean> event) {
+    }
+
+    @Override
+    public void attachMouseEvent(ParamAction<MouseData> event) {
+    }
+
+    @Override
+    public int2 getMousePos() {
+        return int2.zero();
+    }
+
+    @Override
+    public boolean isKeyDataAvailable() {
+        return false;
+    }
+
+    @Override
+    public boolean isMouseDataAvailable() {
+        return false;
+    }
+}
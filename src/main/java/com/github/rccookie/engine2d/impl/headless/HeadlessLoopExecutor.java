@@ -0,0 +1,88 @@
+package com.github.rccookie.engine2d.impl.headless;
+
+import com.github.rccookie.engine2d.Camera;
+import com.github.rccookie.engine2d.core.LoopExecutor;
+import com.github.rccookie.engine2d.core.stats.Bottleneck;
+
+/**
+ * A loop executor that only runs the update loop, without rendering anything. It
+ * either runs uncapped, as fast as possible, or at a fixed tick rate. For a
+ * deterministic simulation independent of the real time taken per tick, combine it
+ * with {@link com.github.rccookie.engine2d.Time#setFixedDelta(Float)}.
+ */
+public class HeadlessLoopExecutor extends LoopExecutor {
+
+    /**
+     * The tick rate to start with.
+     */
+    private final float defaultTickRate;
+
+    /**
+     * Whether to prepare the rendering of each frame, even though nothing is
+     * displayed.
+     */
+    private final boolean prepareRender;
+
+    private long frameDuration = 0;
+
+
+    /**
+     * Creates a new headless loop executor that runs as fast as possible.
+     */
+    public HeadlessLoopExecutor() {
+        this(0);
+    }
+
+    /**
+     * Creates a new headless loop executor that runs at the given tick rate.
+     *
+     * @param tickRate The number of ticks per second. Non-positive values will run
+     *                 as fast as possible
+     */
+    public HeadlessLoopExecutor(float tickRate) {
+        this(tickRate, false);
+    }
+
+    /**
+     * Creates a new headless loop executor that runs at the given tick rate.
+     *
+     * @param tickRate The number of ticks per second. Non-positive values will run
+     *                 as fast as possible
+     * @param prepareRender Whether to also prepare the rendering of each frame. This
+     *                      does not display anything, but can be used to measure
+     *                      the cost of rendering preparation
+     */
+    public HeadlessLoopExecutor(float tickRate, boolean prepareRender) {
+        this.defaultTickRate = tickRate;
+        this.prepareRender = prepareRender;
+        setFps(tickRate);
+    }
+
+    @Override
+    protected Bottleneck runIterationUntimed() {
+        long frameStart = System.nanoTime();
+
+        updateTime();
+        Camera camera = Camera.getActive();
+        runUpdate(camera);
+        if(prepareRender) camera.prepareRender();
+
+        frameDuration = System.nanoTime() - frameStart;
+        return Bottleneck.UPDATE;
+    }
+
+    @Override
+    public Float getDefaultFps() {
+        return defaultTickRate;
+    }
+
+    @Override
+    public long getFrameDuration() {
+        return frameDuration;
+    }
+
+    @Override
+    public boolean isParallel() {
+        return false;
+    }
+}
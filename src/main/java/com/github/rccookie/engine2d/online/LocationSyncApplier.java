@@ -27,7 +27,7 @@ public class LocationSyncApplier extends Component {
      * @param data The data received
      */
     private void update(OnlineData data) {
-        gameObject.location.set(data.json.get("loc").as(float2.class));
+        gameObject.setLocation(data.json.get("loc").as(float2.class));
         gameObject.velocity.set(data.json.get("vel").as(float2.class));
         gameObject.angle = data.json.get("angle").asFloat();
         gameObject.rotation = data.json.get("rot").asFloat();
@@ -3,6 +3,7 @@ package com.github.rccookie.engine2d.util;
 import java.util.function.Supplier;
 
 import com.github.rccookie.event.CaughtEvent;
+import com.github.rccookie.engine2d.core.stats.EventProfiler;
 import com.github.rccookie.event.EventInvocationException;
 import com.github.rccookie.util.Arguments;
 import org.jetbrains.annotations.NotNull;
@@ -17,6 +18,16 @@ public class NamedCaughtEvent extends CaughtEvent {
      */
     private final Supplier<String> name;
 
+    /**
+     * Whether the event is consumable. Consumable events are not profiled.
+     */
+    private final boolean consumable;
+
+    /**
+     * The name used to group the event in the {@link EventProfiler}, evaluated on first use.
+     */
+    private String profileName = null;
+
     /**
      * Creates a new named caught event with the given name.
      *
@@ -36,6 +47,16 @@ public class NamedCaughtEvent extends CaughtEvent {
     public NamedCaughtEvent(boolean consumable, Supplier<String> name) {
         super(consumable);
         this.name = Arguments.checkNull(name);
+        this.consumable = consumable;
+    }
+
+    @Override
+    public boolean invoke() {
+        if(consumable || !EventProfiler.isEnabled()) return super.invoke();
+        if(profileName == null) profileName = EventProfiler.groupName(name.get());
+        EventInvocationException exception = EventProfiler.invoke(profileName, getActions());
+        if(exception != null) handleException(exception);
+        return false;
     }
 
     @Override
@@ -2,6 +2,7 @@ package com.github.rccookie.engine2d.util;
 
 import java.util.function.Supplier;
 
+import com.github.rccookie.engine2d.core.stats.EventProfiler;
 import com.github.rccookie.event.EventInvocationException;
 import com.github.rccookie.event.LazyEvent;
 import com.github.rccookie.event.internal.IEvent;
@@ -19,6 +20,16 @@ public class NamedLazyEvent extends LazyEvent {
      */
     private final Supplier<String> name;
 
+    /**
+     * Whether the event is consumable. Consumable events are not profiled.
+     */
+    private final boolean consumable;
+
+    /**
+     * The name used to group the event in the {@link EventProfiler}, evaluated on first use.
+     */
+    private String profileName = null;
+
     /**
      * Creates a new named caught event with the given name.
      *
@@ -38,6 +49,7 @@ public class NamedLazyEvent extends LazyEvent {
     public NamedLazyEvent(Runnable connect, Runnable disconnect, boolean consumable, Supplier<String> name) {
         super(connect, disconnect, consumable);
         this.name = Arguments.checkNull(name);
+        this.consumable = consumable;
     }
 
     /**
@@ -59,6 +71,16 @@ public class NamedLazyEvent extends LazyEvent {
     public NamedLazyEvent(IEvent attachTo, boolean consumable, Supplier<String> name) {
         super(attachTo, consumable);
         this.name = Arguments.checkNull(name);
+        this.consumable = consumable;
+    }
+
+    @Override
+    public boolean invoke() {
+        if(consumable || !EventProfiler.isEnabled()) return super.invoke();
+        if(profileName == null) profileName = EventProfiler.groupName(name.get());
+        EventInvocationException exception = EventProfiler.invoke(profileName, getActions());
+        if(exception != null) handleException(exception);
+        return false;
     }
 
     @Override
@@ -199,7 +199,7 @@ public class Collision {
   // #### COLLISION STUFF (not from collision.h or collision.cpp) ####
 
   // djm pooling
-  private static float2 d = new float2();
+  private final float2 d = new float2();
 
   /**
    * Compute the collision manifold between two circles.
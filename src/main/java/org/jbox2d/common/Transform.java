@@ -227,8 +227,6 @@ public class Transform implements Serializable {
     out.p.add(A.p);
   }
 
-  private static float2 pool = new float2();
-
   /**
    * <p>mulTrans.</p>
    *
@@ -239,8 +237,10 @@ public class Transform implements Serializable {
   public final static Transform mulTrans(final Transform A, final Transform B) {
     Transform C = new Transform();
     Rot.mulTransUnsafe(A.q, B.q, C.q);
-    pool.set(B.p).sub(A.p);
-    Rot.mulTransUnsafe(A.q, pool, C.p);
+    final float vx = B.p.x - A.p.x;
+    final float vy = B.p.y - A.p.y;
+    C.p.x = A.q.c * vx + A.q.s * vy;
+    C.p.y = -A.q.s * vx + A.q.c * vy;
     return C;
   }
 
@@ -254,8 +254,10 @@ public class Transform implements Serializable {
   public final static void mulTransToOut(final Transform A, final Transform B, final Transform out) {
     assert (out != A);
     Rot.mulTrans(A.q, B.q, out.q);
-    pool.set(B.p).sub(A.p);
-    Rot.mulTrans(A.q, pool, out.p);
+    final float vx = B.p.x - A.p.x;
+    final float vy = B.p.y - A.p.y;
+    out.p.x = A.q.c * vx + A.q.s * vy;
+    out.p.y = -A.q.s * vx + A.q.c * vy;
   }
 
   /**
@@ -270,8 +272,10 @@ public class Transform implements Serializable {
     assert (out != A);
     assert (out != B);
     Rot.mulTransUnsafe(A.q, B.q, out.q);
-    pool.set(B.p).sub(A.p);
-    Rot.mulTransUnsafe(A.q, pool, out.p);
+    final float vx = B.p.x - A.p.x;
+    final float vy = B.p.y - A.p.y;
+    out.p.x = A.q.c * vx + A.q.s * vy;
+    out.p.y = -A.q.s * vx + A.q.c * vy;
   }
 
   /** {@inheritDoc} */
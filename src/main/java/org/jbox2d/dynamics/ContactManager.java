@@ -23,12 +23,18 @@
  ******************************************************************************/
 package org.jbox2d.dynamics;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.jbox2d.callbacks.ContactFilter;
 import org.jbox2d.callbacks.ContactListener;
 import org.jbox2d.callbacks.PairCallback;
+import org.jbox2d.collision.Collision;
 import org.jbox2d.collision.broadphase.BroadPhase;
 import org.jbox2d.dynamics.contacts.Contact;
 import org.jbox2d.dynamics.contacts.ContactEdge;
+import org.jbox2d.pooling.IWorldPool;
+import org.jbox2d.pooling.normal.DefaultWorldPool;
 
 /**
  * Delegate of World.
@@ -46,6 +52,29 @@ public class ContactManager implements PairCallback {
 
   private final World pool;
 
+  /**
+   * The minimum number of contacts to update them concurrently.
+   */
+  private static final int PARALLEL_THRESHOLD = 256;
+  /**
+   * The number of contacts a worker takes at once.
+   */
+  private static final int CHUNK_SIZE = 32;
+
+  private static final byte ACTION_UPDATE = 0;
+  private static final byte ACTION_DESTROY = 1;
+  private static final byte ACTION_SEQUENTIAL = 2;
+  private static final byte ACTION_IF_ACTIVE = 3;
+
+  private ParallelExecutor m_executor;
+  private Collision[] m_collisions;
+  private final ParallelExecutor.Task m_updateTask = this::updateConcurrently;
+  private final AtomicInteger m_nextPending = new AtomicInteger();
+  private Contact[] m_pending = new Contact[0];
+  private byte[] m_actions = new byte[0];
+  private boolean[] m_wasTouching = new boolean[0];
+  private int m_pendingCount;
+
   /**
    * <p>Constructor for ContactManager.</p>
    *
@@ -245,62 +274,168 @@ public class ContactManager implements PairCallback {
    * processed for the world contact list.
    */
   public void collide() {
+    if (m_executor != null && m_contactCount >= PARALLEL_THRESHOLD) {
+      collideConcurrently();
+      return;
+    }
+
     // Update awake contacts.
     Contact c = m_contactList;
     while (c != null) {
+      Contact next = c.getNext();
+      collide(c);
+      c = next;
+    }
+  }
+
+  /**
+   * Filters, destroys or updates the given contact.
+   *
+   * @param c the contact to process
+   */
+  private void collide(Contact c) {
+    // is this contact flagged for filtering?
+    if ((c.m_flags & Contact.FILTER_FLAG) == Contact.FILTER_FLAG) {
       Fixture fixtureA = c.getFixtureA();
       Fixture fixtureB = c.getFixtureB();
-      int indexA = c.getChildIndexA();
-      int indexB = c.getChildIndexB();
-      Body bodyA = fixtureA.getBody();
-      Body bodyB = fixtureB.getBody();
 
-      // is this contact flagged for filtering?
-      if ((c.m_flags & Contact.FILTER_FLAG) == Contact.FILTER_FLAG) {
-        // Should these bodies collide?
-        if (bodyB.shouldCollide(bodyA) == false) {
-          Contact cNuke = c;
-          c = cNuke.getNext();
-          destroy(cNuke);
-          continue;
-        }
-
-        // Check user filtering.
-        if (m_contactFilter != null && m_contactFilter.shouldCollide(fixtureA, fixtureB) == false) {
-          Contact cNuke = c;
-          c = cNuke.getNext();
-          destroy(cNuke);
-          continue;
-        }
+      // Should these bodies collide?
+      if (fixtureB.getBody().shouldCollide(fixtureA.getBody()) == false) {
+        destroy(c);
+        return;
+      }
 
-        // Clear the filtering flag.
-        c.m_flags &= ~Contact.FILTER_FLAG;
+      // Check user filtering.
+      if (m_contactFilter != null && m_contactFilter.shouldCollide(fixtureA, fixtureB) == false) {
+        destroy(c);
+        return;
       }
 
-      boolean activeA = bodyA.isAwake() && bodyA.m_type != BodyType.STATIC;
-      boolean activeB = bodyB.isAwake() && bodyB.m_type != BodyType.STATIC;
+      // Clear the filtering flag.
+      c.m_flags &= ~Contact.FILTER_FLAG;
+    }
 
-      // At least one body must be awake and it must be dynamic or kinematic.
-      if (activeA == false && activeB == false) {
-        c = c.getNext();
-        continue;
-      }
+    // At least one body must be awake and it must be dynamic or kinematic.
+    if (isActive(c) == false) {
+      return;
+    }
 
-      int proxyIdA = fixtureA.m_proxies[indexA].proxyId;
-      int proxyIdB = fixtureB.m_proxies[indexB].proxyId;
-      boolean overlap = m_broadPhase.testOverlap(proxyIdA, proxyIdB);
+    // Here we destroy contacts that cease to overlap in the broad-phase.
+    if (testOverlap(c) == false) {
+      destroy(c);
+      return;
+    }
 
-      // Here we destroy contacts that cease to overlap in the broad-phase.
-      if (overlap == false) {
-        Contact cNuke = c;
-        c = cNuke.getNext();
-        destroy(cNuke);
-        continue;
+    // The contact persists.
+    c.update(m_contactListener);
+  }
+
+  private static boolean isActive(Contact c) {
+    Body bodyA = c.getFixtureA().getBody();
+    Body bodyB = c.getFixtureB().getBody();
+    boolean activeA = bodyA.isAwake() && bodyA.m_type != BodyType.STATIC;
+    boolean activeB = bodyB.isAwake() && bodyB.m_type != BodyType.STATIC;
+    return activeA || activeB;
+  }
+
+  private boolean testOverlap(Contact c) {
+    int proxyIdA = c.getFixtureA().m_proxies[c.getChildIndexA()].proxyId;
+    int proxyIdB = c.getFixtureB().m_proxies[c.getChildIndexB()].proxyId;
+    return m_broadPhase.testOverlap(proxyIdA, proxyIdB);
+  }
+
+  /**
+   * Uses the given executor to update the manifolds of large numbers of contacts
+   * concurrently, or disables concurrent updates if null.
+   *
+   * @param executor the executor to use, or null
+   * @param pool the pool of the world, used by the calling thread
+   */
+  void setExecutor(ParallelExecutor executor, IWorldPool pool) {
+    m_executor = executor;
+    if (executor == null) {
+      m_collisions = null;
+      return;
+    }
+    m_collisions = new Collision[executor.getWorkerCount()];
+    m_collisions[0] = pool.getCollision();
+    for (int i = 1; i < m_collisions.length; i++) {
+      m_collisions[i] =
+          new DefaultWorldPool(World.WORLD_POOL_SIZE, World.WORLD_POOL_CONTAINER_SIZE).getCollision();
+    }
+  }
+
+  /**
+   * Does the same as the sequential loop in {@link #collide()} in three passes: the
+   * contacts are classified on the calling thread, the manifolds of the contacts to
+   * update are evaluated concurrently, and then the contacts are processed in list order
+   * on the calling thread. Waking bodies, filtering, destroying and all listener
+   * callbacks happen in the last pass, in the same order as in the sequential loop.
+   * Manifolds do not depend on any of these, so the result is the same.
+   */
+  private void collideConcurrently() {
+    if (m_pending.length < m_contactCount) {
+      int capacity = Math.max(m_pending.length * 2, m_contactCount);
+      m_pending = new Contact[capacity];
+      m_actions = new byte[capacity];
+      m_wasTouching = new boolean[capacity];
+    }
+
+    int count = 0;
+    for (Contact c = m_contactList; c != null; c = c.m_next) {
+      byte action;
+      if ((c.m_flags & Contact.FILTER_FLAG) == Contact.FILTER_FLAG) {
+        action = ACTION_SEQUENTIAL;
+      } else if (isActive(c) == false) {
+        // May still become active if an earlier contact wakes one of its bodies
+        action = ACTION_IF_ACTIVE;
+      } else if (testOverlap(c) == false) {
+        action = ACTION_DESTROY;
+      } else {
+        action = ACTION_UPDATE;
+        m_wasTouching[count] = c.isTouching();
       }
+      m_pending[count] = c;
+      m_actions[count++] = action;
+    }
+    m_pendingCount = count;
+
+    m_nextPending.set(0);
+    m_executor.run(m_updateTask);
+
+    for (int i = 0; i < count; i++) {
+      Contact c = m_pending[i];
+      switch (m_actions[i]) {
+        case ACTION_UPDATE:
+          c.finishUpdate(m_wasTouching[i], m_contactListener);
+          break;
+        case ACTION_DESTROY:
+          destroy(c);
+          break;
+        case ACTION_SEQUENTIAL:
+          collide(c);
+          break;
+        case ACTION_IF_ACTIVE:
+          if (isActive(c)) {
+            collide(c);
+          }
+          break;
+      }
+    }
+    Arrays.fill(m_pending, 0, count, null);
+    m_pendingCount = 0;
+  }
 
-      // The contact persists.
-      c.update(m_contactListener);
-      c = c.getNext();
+  private void updateConcurrently(int worker) {
+    Collision collision = m_collisions[worker];
+    int start;
+    while ((start = m_nextPending.getAndAdd(CHUNK_SIZE)) < m_pendingCount) {
+      int end = Math.min(start + CHUNK_SIZE, m_pendingCount);
+      for (int i = start; i < end; i++) {
+        if (m_actions[i] == ACTION_UPDATE) {
+          m_pending[i].updateManifold(collision);
+        }
+      }
     }
   }
 }
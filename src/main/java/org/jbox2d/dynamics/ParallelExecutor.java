@@ -0,0 +1,134 @@
+package org.jbox2d.dynamics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a task on a fixed number of workers, one of which is the calling thread. The
+ * call returns once all workers have finished, so everything written by the workers
+ * is visible to the caller afterwards. Worker threads that have been idle for
+ * {@link #KEEP_ALIVE_MILLIS} terminate and are recreated when needed again, so an
+ * executor that is no longer used does not keep any threads alive.
+ */
+class ParallelExecutor {
+
+  /**
+   * A task run by every worker.
+   */
+  interface Task {
+    /**
+     * Runs the task.
+     *
+     * @param worker the index of the worker running the task, in [0, workerCount)
+     */
+    void run(int worker);
+  }
+
+  /**
+   * Time in milliseconds after which idle worker threads terminate.
+   */
+  static final long KEEP_ALIVE_MILLIS = 1000;
+
+  private final int m_workerCount;
+  private final ThreadPoolExecutor m_executor;
+  private final Runnable[] m_runners;
+
+  private Task m_task;
+  private CountDownLatch m_done;
+  private volatile Throwable m_failure;
+
+  /**
+   * Creates a new executor.
+   *
+   * @param workerCount the number of workers including the calling thread, at least 2
+   */
+  ParallelExecutor(int workerCount) {
+    assert (workerCount > 1);
+    m_workerCount = workerCount;
+    m_executor = new ThreadPoolExecutor(workerCount - 1, workerCount - 1,
+        KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+          Thread thread = new Thread(r, "Physics Worker");
+          thread.setDaemon(true);
+          return thread;
+        });
+    m_executor.allowCoreThreadTimeOut(true);
+    m_runners = new Runnable[workerCount - 1];
+    for (int i = 0; i < m_runners.length; i++) {
+      final int worker = i + 1;
+      m_runners[i] = () -> {
+        try {
+          runWorker(worker);
+        } finally {
+          m_done.countDown();
+        }
+      };
+    }
+  }
+
+  /**
+   * Returns the number of workers including the calling thread.
+   *
+   * @return the number of workers
+   */
+  int getWorkerCount() {
+    return m_workerCount;
+  }
+
+  /**
+   * Runs the given task on all workers and waits for them to finish. If a worker
+   * fails, the failure is rethrown on the calling thread.
+   *
+   * @param task the task to run
+   */
+  void run(Task task) {
+    m_task = task;
+    m_failure = null;
+    m_done = new CountDownLatch(m_runners.length);
+    for (Runnable runner : m_runners) {
+      m_executor.execute(runner);
+    }
+    runWorker(0);
+
+    boolean interrupted = false;
+    while (true) {
+      try {
+        m_done.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    m_task = null;
+
+    Throwable failure = m_failure;
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    if (failure != null) {
+      throw new RuntimeException(failure);
+    }
+  }
+
+  /**
+   * Stops the worker threads once they are idle.
+   */
+  void shutdown() {
+    m_executor.shutdown();
+  }
+
+  private void runWorker(int worker) {
+    try {
+      m_task.run(worker);
+    } catch (Throwable t) {
+      m_failure = t;
+    }
+  }
+}
@@ -0,0 +1,241 @@
+package org.jbox2d.dynamics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.rccookie.geometry.performance.float2;
+
+import org.jbox2d.callbacks.ContactImpulse;
+import org.jbox2d.callbacks.ContactListener;
+import org.jbox2d.collision.Manifold;
+import org.jbox2d.dynamics.contacts.Contact;
+import org.jbox2d.dynamics.joints.Joint;
+
+/**
+ * Solves the islands of a time step concurrently. The islands are first recorded in
+ * the order they are found and then solved all at once:
+ * <ul>
+ *   <li>Islands consisting only of dynamic and kinematic bodies and contacts are solved
+ *   by the workers. Each worker solves them in its own {@link Island}, and therefore
+ *   with its own {@link SolverData} and contact solver, and without a contact listener.
+ *   These islands share no state, so the result does not depend on which worker solves
+ *   which island.</li>
+ *   <li>Islands containing a static body or a joint are solved on the calling thread
+ *   afterwards, exactly like in sequential mode. Static bodies take part in multiple
+ *   islands, and joints use the pool of the world, so neither can be touched by
+ *   multiple threads.</li>
+ * </ul>
+ * Afterwards the post solve events of the concurrently solved islands are reported on
+ * the calling thread, in island order, using the impulses stored in the manifolds.
+ */
+class ParallelIslandSolver {
+
+  private final ParallelExecutor m_executor;
+  private final Island[] m_islands;
+  private final Profile[] m_profiles;
+  private final ParallelExecutor.Task m_task = this::solveConcurrently;
+
+  // The recorded islands, each as range of the shared arrays below
+  private int m_islandCount;
+  private int[] m_bodyStarts = new int[16];
+  private int[] m_contactStarts = new int[16];
+  private int[] m_jointStarts = new int[16];
+  private boolean[] m_concurrent = new boolean[16];
+
+  private Body[] m_bodies = new Body[64];
+  private Contact[] m_contacts = new Contact[64];
+  private Joint[] m_joints = new Joint[16];
+  private int m_bodyCount, m_contactCount, m_jointCount;
+
+  // Indices of the islands to solve concurrently
+  private int[] m_concurrentIslands = new int[16];
+  private int m_concurrentCount;
+  private final AtomicInteger m_next = new AtomicInteger();
+
+  private TimeStep m_step;
+  private float2 m_gravity;
+  private boolean m_allowSleep;
+
+  private final ContactImpulse m_impulse = new ContactImpulse();
+
+  /**
+   * Creates a new island solver.
+   *
+   * @param executor the executor to solve the islands with
+   */
+  ParallelIslandSolver(ParallelExecutor executor) {
+    m_executor = executor;
+    m_islands = new Island[executor.getWorkerCount()];
+    m_profiles = new Profile[executor.getWorkerCount()];
+    for (int i = 0; i < m_islands.length; i++) {
+      m_islands[i] = new Island();
+      m_profiles[i] = new Profile();
+    }
+  }
+
+  /**
+   * Records the given island to be solved later. The island may be cleared afterwards.
+   *
+   * @param island the island to record
+   */
+  void record(Island island) {
+    if (m_islandCount == m_bodyStarts.length) {
+      int capacity = m_islandCount * 2;
+      m_bodyStarts = Arrays.copyOf(m_bodyStarts, capacity);
+      m_contactStarts = Arrays.copyOf(m_contactStarts, capacity);
+      m_jointStarts = Arrays.copyOf(m_jointStarts, capacity);
+      m_concurrent = Arrays.copyOf(m_concurrent, capacity);
+    }
+    if (m_bodyCount + island.m_bodyCount > m_bodies.length) {
+      m_bodies = Arrays.copyOf(m_bodies,
+          Math.max(m_bodies.length * 2, m_bodyCount + island.m_bodyCount));
+    }
+    if (m_contactCount + island.m_contactCount > m_contacts.length) {
+      m_contacts = Arrays.copyOf(m_contacts,
+          Math.max(m_contacts.length * 2, m_contactCount + island.m_contactCount));
+    }
+    if (m_jointCount + island.m_jointCount > m_joints.length) {
+      m_joints = Arrays.copyOf(m_joints,
+          Math.max(m_joints.length * 2, m_jointCount + island.m_jointCount));
+    }
+
+    m_bodyStarts[m_islandCount] = m_bodyCount;
+    m_contactStarts[m_islandCount] = m_contactCount;
+    m_jointStarts[m_islandCount] = m_jointCount;
+
+    boolean concurrent = island.m_jointCount == 0;
+    for (int i = 0; i < island.m_bodyCount; i++) {
+      Body b = island.m_bodies[i];
+      concurrent &= b.getType() != BodyType.STATIC;
+      m_bodies[m_bodyCount++] = b;
+    }
+    System.arraycopy(island.m_contacts, 0, m_contacts, m_contactCount, island.m_contactCount);
+    m_contactCount += island.m_contactCount;
+    System.arraycopy(island.m_joints, 0, m_joints, m_jointCount, island.m_jointCount);
+    m_jointCount += island.m_jointCount;
+    m_concurrent[m_islandCount++] = concurrent;
+
+    if (concurrent) {
+      if (m_concurrentCount == m_concurrentIslands.length) {
+        m_concurrentIslands = Arrays.copyOf(m_concurrentIslands, m_concurrentCount * 2);
+      }
+      m_concurrentIslands[m_concurrentCount++] = m_islandCount - 1;
+    }
+  }
+
+  /**
+   * Solves all recorded islands and clears the records afterwards.
+   *
+   * @param profile the profile of the world
+   * @param step the time step
+   * @param gravity the gravity of the world
+   * @param allowSleep whether bodies may fall asleep
+   * @param island the island of the world, initialized to hold any island, used to
+   *          solve the islands that cannot be solved concurrently
+   */
+  void solve(Profile profile, TimeStep step, float2 gravity, boolean allowSleep, Island island) {
+    if (m_concurrentCount != 0) {
+      m_step = step;
+      m_gravity = gravity;
+      m_allowSleep = allowSleep;
+      for (Profile p : m_profiles) {
+        p.solveInit.startAccum();
+        p.solveVelocity.startAccum();
+        p.solvePosition.startAccum();
+      }
+      m_next.set(0);
+
+      if (m_concurrentCount == 1) {
+        solveConcurrently(0);
+      } else {
+        m_executor.run(m_task);
+      }
+
+      for (Profile p : m_profiles) {
+        profile.solveInit.accum(p.solveInit.accum);
+        profile.solveVelocity.accum(p.solveVelocity.accum);
+        profile.solvePosition.accum(p.solvePosition.accum);
+      }
+      m_step = null;
+      m_gravity = null;
+    }
+
+    // Report and solve the remaining islands in order
+    ContactListener listener = island.m_listener;
+    for (int i = 0; i < m_islandCount; i++) {
+      int bodyEnd = i + 1 < m_islandCount ? m_bodyStarts[i + 1] : m_bodyCount;
+      int contactEnd = i + 1 < m_islandCount ? m_contactStarts[i + 1] : m_contactCount;
+      int jointEnd = i + 1 < m_islandCount ? m_jointStarts[i + 1] : m_jointCount;
+
+      if (m_concurrent[i]) {
+        if (listener != null) {
+          for (int j = m_contactStarts[i]; j < contactEnd; j++) {
+            report(listener, m_contacts[j]);
+          }
+        }
+        continue;
+      }
+
+      // Wake the bodies again as sequential mode would have done directly before
+      // solving, an earlier island may have put a shared static body to sleep
+      island.clear();
+      for (int j = m_bodyStarts[i]; j < bodyEnd; j++) {
+        m_bodies[j].setAwake(true);
+        island.add(m_bodies[j]);
+      }
+      for (int j = m_contactStarts[i]; j < contactEnd; j++) {
+        island.add(m_contacts[j]);
+      }
+      for (int j = m_jointStarts[i]; j < jointEnd; j++) {
+        island.add(m_joints[j]);
+      }
+      island.solve(profile, step, gravity, allowSleep);
+    }
+
+    Arrays.fill(m_bodies, 0, m_bodyCount, null);
+    Arrays.fill(m_contacts, 0, m_contactCount, null);
+    Arrays.fill(m_joints, 0, m_jointCount, null);
+    m_islandCount = m_bodyCount = m_contactCount = m_jointCount = m_concurrentCount = 0;
+  }
+
+  /**
+   * Solves concurrent islands until none are left.
+   *
+   * @param worker the index of the worker
+   */
+  private void solveConcurrently(int worker) {
+    Island island = m_islands[worker];
+    Profile profile = m_profiles[worker];
+
+    int next;
+    while ((next = m_next.getAndIncrement()) < m_concurrentCount) {
+      int i = m_concurrentIslands[next];
+      int bodyStart = m_bodyStarts[i], contactStart = m_contactStarts[i];
+      int bodyEnd = i + 1 < m_islandCount ? m_bodyStarts[i + 1] : m_bodyCount;
+      int contactEnd = i + 1 < m_islandCount ? m_contactStarts[i + 1] : m_contactCount;
+
+      island.init(bodyEnd - bodyStart, contactEnd - contactStart, 0, null);
+      for (int j = bodyStart; j < bodyEnd; j++) {
+        island.add(m_bodies[j]);
+      }
+      for (int j = contactStart; j < contactEnd; j++) {
+        island.add(m_contacts[j]);
+      }
+      island.solve(profile, m_step, m_gravity, m_allowSleep);
+    }
+  }
+
+  /**
+   * Reports the impulses of a solved contact. These are the same impulses the contact
+   * solver reports, as it stores them in the manifold.
+   */
+  private void report(ContactListener listener, Contact contact) {
+    Manifold manifold = contact.getManifold();
+    m_impulse.count = manifold.pointCount;
+    for (int j = 0; j < manifold.pointCount; j++) {
+      m_impulse.normalImpulses[j] = manifold.points[j].normalImpulse;
+      m_impulse.tangentImpulses[j] = manifold.points[j].tangentImpulse;
+    }
+    listener.postSolve(contact, m_impulse);
+  }
+}
@@ -139,6 +139,9 @@ public class World {
 
   private ParticleSystem m_particleSystem;
 
+  private ParallelExecutor m_executor;
+  private ParallelIslandSolver m_islandSolver;
+
 
   private ContactRegister[][] contactStacks =
       new ContactRegister[ShapeType.values().length][ShapeType.values().length];
@@ -1139,6 +1142,46 @@ public class World {
     return (m_flags & CLEAR_FORCES) == CLEAR_FORCES;
   }
 
+  /**
+   * Set the number of threads used to collide and solve a time step, including the
+   * thread calling {@link #step(float, int, int)}. With more than one thread, the
+   * manifolds of large numbers of contacts are updated concurrently, and islands
+   * consisting only of dynamic and kinematic bodies and contacts are solved concurrently,
+   * while islands with static bodies or joints are still solved on the calling thread.
+   * The result is identical to using one thread, and contact listener callbacks are still
+   * invoked on the calling thread, in the same order. Defaults to 1.
+   *
+   * @param threadCount the number of threads, at least 1
+   */
+  public void setSolverThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("threadCount must be at least 1");
+    }
+    assert (isLocked() == false);
+    if (threadCount == getSolverThreadCount()) {
+      return;
+    }
+    if (m_executor != null) {
+      m_executor.shutdown();
+      m_executor = null;
+      m_islandSolver = null;
+    }
+    if (threadCount > 1) {
+      m_executor = new ParallelExecutor(threadCount);
+      m_islandSolver = new ParallelIslandSolver(m_executor);
+    }
+    m_contactManager.setExecutor(m_executor, pool);
+  }
+
+  /**
+   * Get the number of threads used to solve the islands of a time step.
+   *
+   * @return the number of threads, at least 1
+   */
+  public int getSolverThreadCount() {
+    return m_executor != null ? m_executor.getWorkerCount() : 1;
+  }
+
   /**
    * Get the contact manager for testing purposes
    *
@@ -1288,7 +1331,11 @@ public class World {
           other.m_flags |= Body.e_islandFlag;
         }
       }
-      island.solve(m_profile, step, m_gravity, m_allowSleep);
+      if (m_islandSolver != null) {
+        m_islandSolver.record(island);
+      } else {
+        island.solve(m_profile, step, m_gravity, m_allowSleep);
+      }
 
       // Post solve cleanup.
       for (int i = 0; i < island.m_bodyCount; ++i) {
@@ -1299,6 +1346,9 @@ public class World {
         }
       }
     }
+    if (m_islandSolver != null) {
+      m_islandSolver.solve(m_profile, step, m_gravity, m_allowSleep, island);
+    }
     m_profile.solveInit.endAccum();
     m_profile.solveVelocity.endAccum();
     m_profile.solvePosition.endAccum();
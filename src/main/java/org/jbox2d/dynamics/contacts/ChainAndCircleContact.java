@@ -23,6 +23,7 @@
  ******************************************************************************/
 package org.jbox2d.dynamics.contacts;
 
+import org.jbox2d.collision.Collision;
 import org.jbox2d.collision.Manifold;
 import org.jbox2d.collision.shapes.ChainShape;
 import org.jbox2d.collision.shapes.CircleShape;
@@ -59,10 +60,10 @@ public class ChainAndCircleContact extends Contact {
 
   /** {@inheritDoc} */
   @Override
-  public void evaluate(Manifold manifold, Transform xfA, Transform xfB) {
+  public void evaluate(Manifold manifold, Transform xfA, Transform xfB, Collision collision) {
     ChainShape chain = (ChainShape) m_fixtureA.getShape();
     chain.getChildEdge(edge, m_indexA);
-    pool.getCollision().collideEdgeAndCircle(manifold, edge, xfA,
+    collision.collideEdgeAndCircle(manifold, edge, xfA,
         (CircleShape) m_fixtureB.getShape(), xfB);
   }
 }
@@ -25,6 +25,7 @@ package org.jbox2d.dynamics.contacts;
 
 
 import org.jbox2d.callbacks.ContactListener;
+import org.jbox2d.collision.Collision;
 import org.jbox2d.collision.ContactID;
 import org.jbox2d.collision.Manifold;
 import org.jbox2d.collision.ManifoldPoint;
@@ -323,7 +324,20 @@ public abstract class Contact {
    * @param xfA a {@link org.jbox2d.common.Transform} object
    * @param xfB a {@link org.jbox2d.common.Transform} object
    */
-  public abstract void evaluate(Manifold manifold, Transform xfA, Transform xfB);
+  public void evaluate(Manifold manifold, Transform xfA, Transform xfB) {
+    evaluate(manifold, xfA, xfB, pool.getCollision());
+  }
+
+  /**
+   * Evaluate the manifold using the given collision object instead of the one of the
+   * world pool.
+   *
+   * @param manifold a {@link org.jbox2d.collision.Manifold} object
+   * @param xfA a {@link org.jbox2d.common.Transform} object
+   * @param xfB a {@link org.jbox2d.common.Transform} object
+   * @param collision a {@link org.jbox2d.collision.Collision} object
+   */
+  public abstract void evaluate(Manifold manifold, Transform xfA, Transform xfB, Collision collision);
 
   /**
    * Flag this contact for filtering. Filtering will occur the next time step.
@@ -341,6 +355,19 @@ public abstract class Contact {
    * @param listener a {@link org.jbox2d.callbacks.ContactListener} object
    */
   public void update(ContactListener listener) {
+    boolean wasTouching = (m_flags & TOUCHING_FLAG) == TOUCHING_FLAG;
+    updateManifold(pool.getCollision());
+    finishUpdate(wasTouching, listener);
+  }
+
+  /**
+   * The first part of {@link #update(ContactListener)}: updates the manifold and the
+   * touching state. This only modifies the state of this contact, so different contacts
+   * can be updated concurrently, as long as each thread uses its own collision object.
+   *
+   * @param collision the collision object to use
+   */
+  public void updateManifold(Collision collision) {
 
     oldManifold.set(m_manifold);
 
@@ -348,7 +375,6 @@ public abstract class Contact {
     m_flags |= ENABLED_FLAG;
 
     boolean touching = false;
-    boolean wasTouching = (m_flags & TOUCHING_FLAG) == TOUCHING_FLAG;
 
     boolean sensorA = m_fixtureA.isSensor();
     boolean sensorB = m_fixtureB.isSensor();
@@ -364,12 +390,12 @@ public abstract class Contact {
     if (sensor) {
       Shape shapeA = m_fixtureA.getShape();
       Shape shapeB = m_fixtureB.getShape();
-      touching = pool.getCollision().testOverlap(shapeA, m_indexA, shapeB, m_indexB, xfA, xfB);
+      touching = collision.testOverlap(shapeA, m_indexA, shapeB, m_indexB, xfA, xfB);
 
       // Sensors don't generate manifolds.
       m_manifold.pointCount = 0;
     } else {
-      evaluate(m_manifold, xfA, xfB);
+      evaluate(m_manifold, xfA, xfB, collision);
       touching = m_manifold.pointCount > 0;
 
       // Match old contact ids to new contact ids and copy the
@@ -390,11 +416,6 @@ public abstract class Contact {
           }
         }
       }
-
-      if (touching != wasTouching) {
-        bodyA.setAwake(true);
-        bodyB.setAwake(true);
-      }
     }
 
     if (touching) {
@@ -402,6 +423,23 @@ public abstract class Contact {
     } else {
       m_flags &= ~TOUCHING_FLAG;
     }
+  }
+
+  /**
+   * The second part of {@link #update(ContactListener)}: wakes the bodies if the touching
+   * state changed and informs the listener. Must be called on the thread stepping the world.
+   *
+   * @param wasTouching whether the contact was touching before the manifold was updated
+   * @param listener a {@link org.jbox2d.callbacks.ContactListener} object
+   */
+  public void finishUpdate(boolean wasTouching, ContactListener listener) {
+    boolean touching = (m_flags & TOUCHING_FLAG) == TOUCHING_FLAG;
+    boolean sensor = m_fixtureA.isSensor() || m_fixtureB.isSensor();
+
+    if (sensor == false && touching != wasTouching) {
+      m_fixtureA.getBody().setAwake(true);
+      m_fixtureB.getBody().setAwake(true);
+    }
 
     if (listener == null) {
       return;
@@ -0,0 +1,62 @@
+package com.github.rccookie.engine2d;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.rccookie.engine2d.impl.headless.HeadlessImplementation;
+import com.github.rccookie.engine2d.impl.headless.HeadlessLoopExecutor;
+
+/**
+ * Checks that removing gameobjects while iterating {@link Map#getObjects()} does
+ * neither skip nor repeat any of the remaining objects, and that the insertion
+ * order is kept across updates.
+ */
+class MapIterationTest {
+
+    public static void main(String[] args) {
+        Application.setup(new HeadlessImplementation(), HeadlessLoopExecutor::new);
+
+        Map map = new Map();
+        List<GameObject> added = new ArrayList<>();
+        for(int i=0; i<10; i++) {
+            GameObject object = new GameObject();
+            object.setMap(map);
+            added.add(object);
+        }
+
+        // Remove the current object and one that has not been visited yet
+        GameObject unvisited = added.get(7);
+        List<GameObject> visited = new ArrayList<>();
+        for(GameObject object : map.getObjects()) {
+            visited.add(object);
+            if(object == added.get(2)) {
+                object.remove();
+                unvisited.remove();
+            }
+        }
+
+        List<GameObject> expectedVisited = new ArrayList<>(added);
+        expectedVisited.remove(unvisited);
+        check(visited, expectedVisited, "iteration while removing");
+
+        List<GameObject> remaining = new ArrayList<>(expectedVisited);
+        remaining.remove(added.get(2));
+        check(new ArrayList<>(map.getObjects()), remaining, "objects after removal");
+        if(map.getObjectCount() != remaining.size())
+            throw new AssertionError("Expected " + remaining.size() + " objects, got " + map.getObjectCount());
+
+        // Gaps get closed during the update, order must still be the insertion order
+        map.update();
+        GameObject late = new GameObject();
+        late.setMap(map);
+        remaining.add(late);
+        check(new ArrayList<>(map.getObjects()), remaining, "objects after update");
+
+        System.out.println("MapIterationTest passed");
+    }
+
+    private static void check(List<GameObject> actual, List<GameObject> expected, String what) {
+        if(!actual.equals(expected))
+            throw new AssertionError(what + ": expected " + expected + ", got " + actual);
+    }
+}